@@ -0,0 +1,40 @@
+package graphs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Whole-graph algorithms, and building each representation from the generated edges; for the
+// mapped representation, build maps the file GraphState wrote, so it measures GraphFile.map only
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class AnalyticsBenchmarks {
+	@Benchmark
+	public Object build(GraphState state) {
+		return GraphBenchmarks.build(state.representation, state.builder, state.file);
+	}
+
+	@Benchmark
+	public Object mst(GraphState state) {
+		return state.graph.getMinimumSpanningForest();
+	}
+
+	@Benchmark
+	public Object connectedComponents(GraphState state) {
+		return Connectivity.connectedComponents(state.graph);
+	}
+
+	@Benchmark
+	public Object pageRank(GraphState state) {
+		return Centrality.pageRank(state.graph);
+	}
+}
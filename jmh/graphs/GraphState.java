@@ -0,0 +1,69 @@
+package graphs;
+
+import java.io.File;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// The graph a benchmark runs on: a GraphGenerators workload of about size vertices in one of the
+// representations of GraphBenchmarks, generated once per fork from a fixed seed. The mapped
+// representation maps a file written in setUp and deleted in tearDown.
+@State(Scope.Benchmark)
+public class GraphState {
+	private static final long SEED = 42;
+	private static final int QUERIES = 1024; // Random vertices that queries cycle through
+
+	@Param({"er", "rmat", "ba", "geometric", "grid", "path"})
+	public String workload;
+
+	@Param({"4096", "65536", "1048576"})
+	public int size;
+
+	@Param({"list", "csr", "concurrent", "mapped"})
+	public String representation;
+
+	GraphBuilder<Integer> builder;
+	File file; // The graph file of the mapped representation, else null
+	WeightedGraph<Integer> graph;
+	int[] queries;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		builder = GraphBenchmarks.generate(workload, size, SEED);
+		if (representation.equals("mapped")) {
+			file = GraphBenchmarks.writeGraphFile(builder);
+		}
+		graph = GraphBenchmarks.build(representation, builder, file);
+		Random random = new Random(SEED);
+		queries = new int[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = random.nextInt(graph.getSize());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		graph = null;
+		if (file != null) {
+			GraphBenchmarks.deleteGraphFile(file);
+			file = null;
+		}
+	}
+
+	// The position of each benchmark thread in queries, so every thread sees the same sequence
+	@State(Scope.Thread)
+	public static class Queries {
+		private int next;
+
+		int nextVertex(GraphState state) {
+			int v = state.queries[next];
+			next = (next + 1) % state.queries.length;
+			return v;
+		}
+	}
+}
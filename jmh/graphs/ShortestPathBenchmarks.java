@@ -0,0 +1,69 @@
+package graphs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Shortest path queries between random vertices
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ShortestPathBenchmarks {
+	// A ShortestPathCache over the graph of the trial
+	@State(Scope.Benchmark)
+	public static class Cache {
+		ShortestPathCache<Integer> cache;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState state) {
+			cache = new ShortestPathCache<>(state.graph, 64, 1L << 28);
+		}
+	}
+
+	@Benchmark
+	public Object shortestPath(GraphState state, GraphState.Queries queries) {
+		return state.graph.getShortestPath(queries.nextVertex(state));
+	}
+
+	@Benchmark
+	public Object parallelShortestPath(GraphState state, GraphState.Queries queries) {
+		return state.graph.parallelShortestPath(queries.nextVertex(state));
+	}
+
+	@Benchmark
+	public Object pointToPoint(GraphState state, GraphState.Queries queries) {
+		return state.graph.getShortestPath(queries.nextVertex(state), queries.nextVertex(state));
+	}
+
+	// A 16 x 16 table between random vertices
+	@Benchmark
+	public Object manyToMany(GraphState state, GraphState.Queries queries) {
+		int[] sources = new int[16];
+		int[] targets = new int[16];
+		for (int i = 0; i < 16; i++) {
+			sources[i] = queries.nextVertex(state);
+			targets[i] = queries.nextVertex(state);
+		}
+		return state.graph.getDistances(sources, targets);
+	}
+
+	// Heavy-tailed sources: 32 hot vertices take 90% of the queries
+	@Benchmark
+	public Object cachedPaths(GraphState state, GraphState.Queries queries, Cache cache) {
+		int v = queries.nextVertex(state);
+		int source = v % 10 == 0 ? v : state.queries[v % 32];
+		return cache.cache.getShortestPath(source);
+	}
+}
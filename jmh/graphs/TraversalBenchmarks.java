@@ -0,0 +1,57 @@
+package graphs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Neighbor access and searches from random sources
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class TraversalBenchmarks {
+	// getNeighbors of every vertex; the boxed lists are what it costs
+	@Benchmark
+	public void neighbors(GraphState state, Blackhole blackhole) {
+		WeightedGraph<Integer> graph = state.graph;
+		for (int u = 0, n = graph.getSize(); u < n; u++) {
+			blackhole.consume(graph.getNeighbors(u));
+		}
+	}
+
+	// getDegree and getNeighbor over every edge, the access path of the algorithms
+	@Benchmark
+	public long indexedNeighbors(GraphState state) {
+		WeightedGraph<Integer> graph = state.graph;
+		long sum = 0;
+		for (int u = 0, n = graph.getSize(); u < n; u++) {
+			for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+				sum += graph.getNeighbor(u, i);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public Object bfs(GraphState state, GraphState.Queries queries) {
+		return state.graph.bfs(queries.nextVertex(state));
+	}
+
+	@Benchmark
+	public Object parallelBfs(GraphState state, GraphState.Queries queries) {
+		return state.graph.parallelBfs(queries.nextVertex(state));
+	}
+
+	@Benchmark
+	public Object dfs(GraphState state, GraphState.Queries queries) {
+		return state.graph.dfs(queries.nextVertex(state));
+	}
+}
@@ -0,0 +1,61 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Boruvka's algorithm: in each round every component adds its cheapest outgoing edge,
+// at least halving the number of components, so there are at most log V rounds
+class BoruvkaMST implements MSTStrategy {
+	
+	@Override
+	public <V> WeightedGraph<V>.MST getMinimumSpanningTree(WeightedGraph<V> graph, int startingVertex,
+			boolean spanForest) {
+		WeightedEdge[] edges = SpanningForest.collectEdges(graph);
+		int n = graph.getSize();
+		UnionFind components = new UnionFind(n);
+		WeightedEdge[] selected = new WeightedEdge[Math.max(n - 1, 0)];
+		int count = 0;
+		
+		// cheapest[c] is the index of the cheapest edge leaving component c, or -1
+		int[] cheapest = new int[n];
+		int live = edges.length; // Edges inside a single component are dropped from the front part
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			Arrays.fill(cheapest, -1);
+			int kept = 0;
+			for (int i = 0; i < live; i++) {
+				WeightedEdge e = edges[i];
+				int cu = components.find(e.u);
+				int cv = components.find(e.v);
+				if (cu == cv) {
+					continue;
+				}
+				edges[kept] = e;
+				if (cheapest[cu] == -1 || isCheaper(e, kept, edges[cheapest[cu]], cheapest[cu])) {
+					cheapest[cu] = kept;
+				}
+				if (cheapest[cv] == -1 || isCheaper(e, kept, edges[cheapest[cv]], cheapest[cv])) {
+					cheapest[cv] = kept;
+				}
+				kept++;
+			}
+			live = kept;
+			
+			for (int c = 0; c < n; c++) {
+				if (cheapest[c] != -1) {
+					WeightedEdge e = edges[cheapest[c]];
+					if (components.union(e.u, e.v)) {
+						selected[count++] = e;
+						merged = true;
+					}
+				}
+			}
+		}
+		return SpanningForest.toMST(graph, startingVertex, spanForest, selected, count);
+	}
+	
+	// Order edges by weight, then by position, so equal weights cannot form a cycle
+	private static boolean isCheaper(WeightedEdge a, int indexA, WeightedEdge b, int indexB) {
+		return a.weight < b.weight || (a.weight == b.weight && indexA < indexB);
+	}
+}
@@ -0,0 +1,294 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/*
+ * Vertex importance using all cores: PageRank, personalized PageRank and betweenness. Results
+ * are double[] indexed like getVertices(). The graph is read as a CsrGraph (see freeze()), so
+ * the iterations run over int arrays without boxing.
+ *
+ * PageRank pulls: every vertex sums the shares of its in-neighbors, so each vertex is written by
+ * one task only and no atomics are needed. The vertices are cut into partitions of about
+ * PARTITION_EDGES in-edges, and sums over partitions are added in partition order, so the
+ * result does not depend on the number of threads. Iterations stop once the ranks change by
+ * less than tolerance in total (L1 norm). The rank of vertices without out-edges is passed on
+ * like the random jumps, and the ranks add up to 1.
+ *
+ * Betweenness follows Brandes' algorithm on unweighted shortest paths, each worker running
+ * breadth-first searches from its share of the sources into its own arrays. With fewer samples
+ * than vertices the sources are a random sample and the sums are scaled up to estimate the
+ * exact values (Brandes and Pich).
+ * */
+public final class Centrality {
+	public static final double DEFAULT_DAMPING = 0.85;
+	public static final double DEFAULT_TOLERANCE = 1e-9;
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+	private static final int PARTITION_EDGES = 1 << 16;
+
+	private Centrality() {
+	}
+
+	// PageRank with damping 0.85, iterated until the ranks change by less than 1e-9
+	public static double[] pageRank(Graph<?> graph) {
+		return pageRank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+
+	// PageRank where a random surfer follows an edge with probability damping and otherwise
+	// jumps to a uniformly random vertex
+	public static double[] pageRank(Graph<?> graph, double damping, double tolerance, int maxIterations) {
+		return rank(csr(graph), null, damping, tolerance, maxIterations);
+	}
+
+	// PageRank personalized to source: random jumps go back to source
+	public static double[] personalizedPageRank(Graph<?> graph, int source) {
+		return personalizedPageRank(graph, new int[] {source}, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+
+	// PageRank where random jumps go to one of sources, each equally likely
+	public static double[] personalizedPageRank(Graph<?> graph, int[] sources, double damping, double tolerance, int maxIterations) {
+		CsrGraph<?> csr = csr(graph);
+		if (sources.length == 0) {
+			throw new IllegalArgumentException("No sources");
+		}
+		double[] jump = new double[csr.getSize()];
+		for (int source : sources) {
+			if (source < 0 || source >= jump.length) {
+				throw new IllegalArgumentException("No such index: " + source);
+			}
+			jump[source] += 1.0 / sources.length;
+		}
+		return rank(csr, jump, damping, tolerance, maxIterations);
+	}
+
+	// Exact betweenness: the number of shortest paths between other vertices that pass through
+	// each vertex, counting each pair of an undirected graph once
+	public static double[] betweenness(Graph<?> graph) {
+		return betweenness(graph, Integer.MAX_VALUE, 0);
+	}
+
+	// Betweenness estimated from shortest paths out of samples random sources
+	public static double[] betweenness(Graph<?> graph, int samples, long seed) {
+		CsrGraph<?> csr = csr(graph);
+		int n = csr.getSize();
+		int[] sources = sample(n, Math.min(samples, n), seed);
+		int workers = Math.max(1, Math.min(sources.length, ForkJoinPool.getCommonPoolParallelism()));
+		double[][] partial = new double[workers][];
+		IntStream.range(0, workers).parallel().forEach(worker -> {
+			Brandes brandes = new Brandes(csr);
+			for (int i = worker; i < sources.length; i += workers) {
+				brandes.accumulate(sources[i]);
+			}
+			partial[worker] = brandes.centrality;
+		});
+
+		// Scale up a sample, and count the pairs of an undirected graph once instead of twice
+		double scale = (sources.length == 0 ? 0 : (double)n / sources.length) * (csr.isDirected ? 1 : 0.5);
+		double[] centrality = new double[n];
+		IntStream.range(0, n).parallel().forEach(v -> {
+			double sum = 0;
+			for (double[] p : partial) {
+				sum += p[v];
+			}
+			centrality[v] = sum * scale;
+		});
+		return centrality;
+	}
+
+	private static CsrGraph<?> csr(Graph<?> graph) {
+		return Connectivity.view(graph).freeze();
+	}
+
+	// Power iteration; jump[v] is the probability of jumping to v, or null for uniform jumps
+	private static double[] rank(CsrGraph<?> graph, double[] jump, double damping, double tolerance, int maxIterations) {
+		if (!(damping >= 0 && damping < 1)) {
+			throw new IllegalArgumentException("Damping must be in [0, 1): " + damping);
+		}
+		int n = graph.getSize();
+		if (n == 0) {
+			return new double[0];
+		}
+		CsrGraph<?> incoming = graph.getTranspose();
+		int[] outOffsets = graph.offsets;
+		int[] inOffsets = incoming.offsets;
+		int[] inSources = incoming.targets;
+		int[] bounds = partitions(inOffsets, n);
+		int partitions = bounds.length - 1;
+
+		double[] rank = new double[n];
+		double[] next = new double[n];
+		double[] share = new double[n]; // rank[u] / outDegree(u), what u passes to each out-neighbor
+		double[] nextShare = new double[n];
+		double[] danglingSums = new double[partitions]; // Rank of vertices without out-edges, per partition
+		double[] changes = new double[partitions];
+		double[] initial = rank;
+		double[] initialShare = share;
+		IntStream.range(0, partitions).parallel().forEach(p -> {
+			double dangling = 0;
+			for (int v = bounds[p]; v < bounds[p + 1]; v++) {
+				initial[v] = jump == null ? 1.0 / n : jump[v];
+				int outDegree = outOffsets[v + 1] - outOffsets[v];
+				initialShare[v] = outDegree == 0 ? 0 : initial[v] / outDegree;
+				dangling += outDegree == 0 ? initial[v] : 0;
+			}
+			danglingSums[p] = dangling;
+		});
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			// Rank that jumps: the random jumps plus everything at vertices without out-edges
+			double jumping = 1 - damping + damping * sum(danglingSums);
+			double[] current = rank;
+			double[] updated = next;
+			double[] currentShare = share;
+			double[] updatedShare = nextShare;
+			IntStream.range(0, partitions).parallel().forEach(p -> {
+				double dangling = 0;
+				double change = 0;
+				for (int v = bounds[p]; v < bounds[p + 1]; v++) {
+					double sum = 0;
+					for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+						sum += currentShare[inSources[i]];
+					}
+					double value = damping * sum + jumping * (jump == null ? 1.0 / n : jump[v]);
+					updated[v] = value;
+					change += Math.abs(value - current[v]);
+					int outDegree = outOffsets[v + 1] - outOffsets[v];
+					updatedShare[v] = outDegree == 0 ? 0 : value / outDegree;
+					dangling += outDegree == 0 ? value : 0;
+				}
+				danglingSums[p] = dangling;
+				changes[p] = change;
+			});
+			rank = updated;
+			next = current;
+			share = updatedShare;
+			nextShare = currentShare;
+			if (sum(changes) < tolerance) {
+				break;
+			}
+		}
+		return rank;
+	}
+
+	// Cut 0 .. n - 1 into ranges of about PARTITION_EDGES in-edges; return the range bounds
+	private static int[] partitions(int[] offsets, int n) {
+		long edges = offsets[n];
+		int count = (int)Math.max(1, Math.min(n, (edges + n) / PARTITION_EDGES));
+		int[] bounds = new int[count + 1];
+		for (int p = 1; p < count; p++) {
+			// The first vertex whose in-edges plus itself reach the share of partition p
+			long target = (edges + n) * p / count;
+			int low = bounds[p - 1];
+			int high = n;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if ((long)offsets[middle] + middle < target) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			bounds[p] = low;
+		}
+		bounds[count] = n;
+		return bounds;
+	}
+
+	// Sum in index order, so the result does not depend on the threads
+	private static double sum(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	// Return count distinct vertices chosen at random, or all vertices if count == n
+	private static int[] sample(int n, int count, long seed) {
+		int[] vertices = new int[n];
+		for (int v = 0; v < n; v++) {
+			vertices[v] = v;
+		}
+		if (count < n) {
+			SplittableRandom random = new SplittableRandom(seed);
+			for (int i = 0; i < count; i++) {
+				int j = i + random.nextInt(n - i);
+				int temp = vertices[i];
+				vertices[i] = vertices[j];
+				vertices[j] = temp;
+			}
+		}
+		return Arrays.copyOf(vertices, count);
+	}
+
+	// The arrays of one worker of Brandes' algorithm
+	private static final class Brandes {
+		private final int[] offsets;
+		private final int[] targets;
+		final double[] centrality;
+		private final int[] distance; // -1 for vertices not reached from the current source
+		private final double[] paths; // The number of shortest paths from the source
+		private final double[] dependency;
+		private final int[] order; // Reached vertices by distance, also the BFS queue
+
+		Brandes(CsrGraph<?> graph) {
+			int n = graph.getSize();
+			offsets = graph.offsets;
+			targets = graph.targets;
+			centrality = new double[n];
+			distance = new int[n];
+			Arrays.fill(distance, -1);
+			paths = new double[n];
+			dependency = new double[n];
+			order = new int[n];
+		}
+
+		// Add the dependencies of source on every vertex to centrality
+		void accumulate(int source) {
+			int head = 0;
+			int tail = 0;
+			order[tail++] = source;
+			distance[source] = 0;
+			paths[source] = 1;
+			while (head < tail) {
+				int u = order[head++];
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int w = targets[i];
+					if (distance[w] < 0) {
+						distance[w] = distance[u] + 1;
+						order[tail++] = w;
+					}
+					if (distance[w] == distance[u] + 1) {
+						paths[w] += paths[u];
+					}
+				}
+			}
+
+			// Farthest vertices first: a vertex depends on the next vertices of its shortest paths
+			for (int k = tail - 1; k >= 0; k--) {
+				int v = order[k];
+				double sum = 0;
+				for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+					int w = targets[i];
+					if (distance[w] == distance[v] + 1) {
+						sum += (1 + dependency[w]) / paths[w];
+					}
+				}
+				dependency[v] = paths[v] * sum;
+				if (v != source) {
+					centrality[v] += dependency[v];
+				}
+			}
+
+			// Reset only what this search touched
+			for (int k = 0; k < tail; k++) {
+				int v = order[k];
+				distance[v] = -1;
+				paths[v] = 0;
+				dependency[v] = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,396 @@
+package graphs;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/*
+ * A thread-safe graph for read-mostly workloads. Every version of the graph is an immutable
+ * GraphSnapshot, and the current one is published through a volatile field, so readers never
+ * lock and never wait for writers. A writer builds the next version by copying only the
+ * segments of the vertex table and adjacency rows it changes (see SegmentedAdjacency) and
+ * publishes it with a single write.
+ *
+ * Writers take turns on one lock. Group changes with update() to publish them as one version
+ * and pay for the copied segments once. Each query method reads the current version, so two
+ * calls may see different ones; run related queries on one snapshot() instead.
+ * */
+public class ConcurrentGraph<V> implements Graph<V> {
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final boolean isDirected;
+	private volatile GraphSnapshot<V> snapshot;
+
+	public ConcurrentGraph(boolean isDirected) {
+		this.isDirected = isDirected;
+		this.snapshot = new GraphSnapshot<>(isDirected, new SegmentedVertexTable<>(),
+				new SegmentedAdjacency(), isDirected ? new SegmentedAdjacency() : null, 0);
+	}
+
+	// Construct a graph with the vertices and edges of graph; edges of an unweighted graph weigh 1
+	public ConcurrentGraph(UnweightedGraph<V> graph) {
+		this(graph.isDirected);
+		WeightedGraph<V> weighted = graph instanceof WeightedGraph ? (WeightedGraph<V>)graph : null;
+		update(batch -> {
+			for (V v : graph.getVertices()) {
+				batch.addVertex(v);
+			}
+			for (int u = 0; u < graph.getSize(); u++) {
+				for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+					int v = graph.getNeighbor(u, i);
+					// Undirected edges are listed from both ends and added once
+					if (isDirected || u <= v) {
+						batch.addEdge(u, v, weighted == null ? 1 : weighted.getNeighborWeight(u, i));
+					}
+				}
+			}
+		});
+	}
+
+	// Return the current version of the graph, which never changes
+	public GraphSnapshot<V> snapshot() {
+		return snapshot;
+	}
+
+	// Return the number of changes published so far
+	public long getVersion() {
+		return snapshot.getVersion();
+	}
+
+	public boolean isDirected() {
+		return isDirected;
+	}
+
+	// Apply the changes made by changes to batch and publish them as one version. The batch sees
+	// its own changes; other threads see none of them until changes returns. If changes throws,
+	// none of its changes are published.
+	public void update(Consumer<Batch> changes) {
+		writeLock.lock();
+		try {
+			Batch batch = new Batch();
+			try {
+				changes.accept(batch);
+			} catch (Throwable ex) {
+				batch.close();
+				throw ex;
+			}
+			batch.publish();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// A set of changes to the graph, valid only inside update()
+	public final class Batch {
+		private final SegmentedVertexTable<V> vertexTable;
+		private final SegmentedAdjacency outRows;
+		private final SegmentedAdjacency inRows;
+		private boolean isChanged;
+		private boolean isOpen = true;
+
+		private Batch() {
+			GraphSnapshot<V> base = snapshot;
+			vertexTable = base.vertexTable.edit();
+			outRows = base.outRows.edit();
+			inRows = isDirected ? base.inRows.edit() : null;
+		}
+
+		public int getSize() {
+			return vertexTable.size();
+		}
+
+		public int getIndex(V v) {
+			return vertexTable.indexOf(v);
+		}
+
+		public boolean hasEdge(int u, int v) {
+			return outRows.indexOf(u, v) != -1;
+		}
+
+		public boolean addVertex(V vertex) {
+			checkOpen();
+			int index = vertexTable.add(vertex);
+			if (index == -1) {
+				return false;
+			}
+			outRows.ensureVertices(index + 1);
+			if (isDirected) {
+				inRows.ensureVertices(index + 1);
+			}
+			isChanged = true;
+			return true;
+		}
+
+		public boolean addEdge(int u, int v) {
+			return addEdge(u, v, 1);
+		}
+
+		public boolean addEdge(int u, int v, double weight) {
+			checkOpen();
+			checkIndex(u);
+			checkIndex(v);
+			if (outRows.indexOf(u, v) != -1) {
+				return false;
+			}
+			outRows.add(u, v, weight);
+			if (isDirected) {
+				inRows.add(v, u, weight);
+			} else if (u != v) {
+				outRows.add(v, u, weight); // An undirected edge is also stored as (v, u)
+			}
+			isChanged = true;
+			return true;
+		}
+
+		public boolean remove(int u, int v) {
+			checkOpen();
+			checkIndex(u);
+			checkIndex(v);
+			int i = outRows.indexOf(u, v);
+			if (i == -1) {
+				return false;
+			}
+			outRows.removeAt(u, i);
+			if (isDirected) {
+				inRows.removeAt(v, inRows.indexOf(v, u));
+			} else if (u != v) {
+				outRows.removeAt(v, outRows.indexOf(v, u));
+			}
+			isChanged = true;
+			return true;
+		}
+
+		// Remove vertex v and its edges; the last vertex takes over the index of v
+		public boolean remove(V vertex) {
+			checkOpen();
+			int index = vertexTable.indexOf(vertex);
+			if (index == -1) {
+				return false;
+			}
+			// Remove the edges of index from the rows of the other endpoints
+			for (int i = 0, degree = outRows.getDegree(index); i < degree; i++) {
+				int w = outRows.getTarget(index, i);
+				if (w != index) {
+					SegmentedAdjacency rows = isDirected ? inRows : outRows;
+					rows.removeAt(w, rows.indexOf(w, index));
+				}
+			}
+			outRows.clear(index);
+			if (isDirected) {
+				for (int i = 0, degree = inRows.getDegree(index); i < degree; i++) {
+					int w = inRows.getTarget(index, i);
+					if (w != index) {
+						outRows.removeAt(w, outRows.indexOf(w, index));
+					}
+				}
+				inRows.clear(index);
+			}
+
+			// Rename the last vertex to index in its own rows and the rows of its neighbors
+			int last = vertexTable.size() - 1;
+			if (index != last) {
+				rename(outRows, isDirected ? inRows : outRows, last, index);
+				if (isDirected) {
+					rename(inRows, outRows, last, index);
+				}
+				outRows.move(last, index);
+				if (isDirected) {
+					inRows.move(last, index);
+				}
+			}
+			vertexTable.removeAt(index);
+			isChanged = true;
+			return true;
+		}
+
+		// Replace from with to in the row of from and, for each entry, in the mirror row
+		private void rename(SegmentedAdjacency rows, SegmentedAdjacency mirror, int from, int to) {
+			for (int i = 0, degree = rows.getDegree(from); i < degree; i++) {
+				int w = rows.getTarget(from, i);
+				if (w == from) {
+					rows.setTarget(from, i, to);
+				} else {
+					mirror.setTarget(w, mirror.indexOf(w, from), to);
+				}
+			}
+		}
+
+		// Remove every vertex and edge
+		public void clear() {
+			checkOpen();
+			while (vertexTable.size() > 0) {
+				remove(vertexTable.get(vertexTable.size() - 1));
+			}
+		}
+
+		private void checkIndex(int index) {
+			if (index < 0 || index >= vertexTable.size()) {
+				throw new IllegalArgumentException("No such index: " + index);
+			}
+		}
+
+		private void checkOpen() {
+			if (!isOpen) {
+				throw new IllegalStateException("Batch is already published");
+			}
+		}
+
+		// End the batch without publishing it; rows it appended to in place are not read by
+		// versions with the smaller degree, so the current version stays as it was
+		private void close() {
+			isOpen = false;
+			vertexTable.seal();
+			outRows.seal();
+			if (isDirected) {
+				inRows.seal();
+			}
+		}
+
+		private void publish() {
+			close();
+			if (isChanged) {
+				GraphSnapshot<V> base = snapshot;
+				snapshot = new GraphSnapshot<>(isDirected, vertexTable, outRows, inRows, base.getVersion() + 1);
+			}
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return snapshot.getSize();
+	}
+
+	@Override
+	public List<V> getVertices() {
+		return snapshot.getVertices();
+	}
+
+	@Override
+	public V getVertex(int index) {
+		return snapshot.getVertex(index);
+	}
+
+	@Override
+	public int getIndex(V v) {
+		return snapshot.getIndex(v);
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int index) {
+		return snapshot.getNeighbors(index);
+	}
+
+	@Override
+	public int getNeighbor(int index, int i) {
+		return snapshot.getNeighbor(index, i);
+	}
+
+	@Override
+	public void forEachNeighbor(int index, IntConsumer action) {
+		snapshot.forEachNeighbor(index, action);
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return snapshot.getDegree(v);
+	}
+
+	@Override
+	public boolean hasEdge(int u, int v) {
+		return snapshot.hasEdge(u, v);
+	}
+
+	// Return weight on the edge (u, v)
+	public double getWeight(int u, int v) throws Exception {
+		return snapshot.getWeight(u, v);
+	}
+
+	@Override
+	public void printEdges() {
+		snapshot.printEdges();
+	}
+
+	@Override
+	public void clear() {
+		update(Batch::clear);
+	}
+
+	@Override
+	public boolean addVertex(V vertex) {
+		boolean[] result = new boolean[1];
+		update(batch -> result[0] = batch.addVertex(vertex));
+		return result[0];
+	}
+
+	@Override
+	public boolean addEdge(int u, int v) {
+		return addEdge(u, v, 1);
+	}
+
+	@Override
+	public boolean addEdge(Edge e) {
+		return addEdge(e.u, e.v, e instanceof WeightedEdge ? ((WeightedEdge)e).weight : 1);
+	}
+
+	public boolean addEdge(int u, int v, double weight) {
+		boolean[] result = new boolean[1];
+		update(batch -> result[0] = batch.addEdge(u, v, weight));
+		return result[0];
+	}
+
+	@Override
+	public boolean remove(V v) {
+		boolean[] result = new boolean[1];
+		update(batch -> result[0] = batch.remove(v));
+		return result[0];
+	}
+
+	@Override
+	public boolean remove(int u, int v) {
+		boolean[] result = new boolean[1];
+		update(batch -> result[0] = batch.remove(u, v));
+		return result[0];
+	}
+
+	@Override
+	public UnweightedGraph<V>.SearchTree dfs(int v) {
+		return snapshot.dfs(v);
+	}
+
+	@Override
+	public UnweightedGraph<V>.SearchTree bfs(int v) {
+		return snapshot.bfs(v);
+	}
+
+	public WeightedGraph<V>.ShortestPathTree getShortestPath(int sourceVertex) {
+		return snapshot.getShortestPath(sourceVertex);
+	}
+
+	public WeightedGraph<V>.ShortestPathTree parallelShortestPath(int sourceVertex) {
+		return snapshot.parallelShortestPath(sourceVertex);
+	}
+
+	public WeightedGraph<V>.ShortestPathTree parallelShortestPath(int sourceVertex, double delta) {
+		return snapshot.parallelShortestPath(sourceVertex, delta);
+	}
+
+	public Path<V> getShortestPath(int source, int target) {
+		return snapshot.getShortestPath(source, target);
+	}
+
+	public Path<V> getShortestPath(int source, int target, Heuristic<V> heuristic) {
+		return snapshot.getShortestPath(source, target, heuristic);
+	}
+
+	public void getShortestPaths(int[] sources, ShortestPathRowConsumer consumer) {
+		snapshot.getShortestPaths(sources, consumer);
+	}
+
+	public double[][] getDistances(int[] sources, int[] targets) {
+		return snapshot.getDistances(sources, targets);
+	}
+
+	public double[][] getAllPairsDistances() {
+		return snapshot.getAllPairsDistances();
+	}
+}
@@ -0,0 +1,77 @@
+package graphs;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Lock-free disjoint sets over the elements 0 .. n - 1 that many threads can join at once.
+// A root is only ever linked under a smaller root, with a compare-and-set, so the root of
+// every set is its smallest element and the final sets do not depend on the order of unions.
+public class ConcurrentUnionFind {
+	private final AtomicIntegerArray parent;
+
+	public ConcurrentUnionFind(int n) {
+		parent = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			parent.lazySet(i, i);
+		}
+	}
+
+	// Return the number of elements
+	public int size() {
+		return parent.length();
+	}
+
+	// Return the representative (the smallest element) of the set that holds x, if no union
+	// runs at the same time; otherwise an element of that set closer to the root
+	public int find(int x) {
+		int p = parent.get(x);
+		while (p != x) {
+			int grandparent = parent.get(p);
+			if (grandparent != p) {
+				parent.compareAndSet(x, p, grandparent); // Path halving; losing the race is fine
+			}
+			x = grandparent;
+			p = parent.get(x);
+		}
+		return x;
+	}
+
+	// Merge the sets that hold x and y, return false if they were already joined
+	public boolean union(int x, int y) {
+		while (true) {
+			int rootX = find(x);
+			int rootY = find(y);
+			if (rootX == rootY) {
+				return false;
+			}
+			int high = Math.max(rootX, rootY);
+			int low = Math.min(rootX, rootY);
+			// Fails if another thread linked high in the meantime; then look up the roots again
+			if (parent.compareAndSet(high, high, low)) {
+				return true;
+			}
+		}
+	}
+
+	public boolean connected(int x, int y) {
+		while (true) {
+			int rootX = find(x);
+			int rootY = find(y);
+			if (rootX == rootY) {
+				return true;
+			}
+			if (parent.get(rootX) == rootX) {
+				return false; // rootX was still a root after rootY was found
+			}
+		}
+	}
+
+	// Point every element straight at its root; call when no union runs at the same time
+	public void compress(int x) {
+		parent.lazySet(x, find(x));
+	}
+
+	// Return the parent of x, which is its root after compress(x)
+	int getParent(int x) {
+		return parent.get(x);
+	}
+}
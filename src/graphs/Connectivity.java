@@ -0,0 +1,252 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/*
+ * Connected and strongly connected components using all cores. Both return a label per vertex:
+ * the smallest vertex of its component, so labels[v] == v marks one vertex per component and
+ * the labels are the same however the threads run.
+ *
+ * Connected components follow Afforest (Sutton et al.): vertices are joined in a lock-free
+ * union-find along their first NEIGHBOR_ROUNDS edges, which already gathers most of the largest
+ * component; a sample of vertices then finds that component, and only vertices outside it look at
+ * their other edges. The last step needs every edge to be seen from both ends, so directed graphs
+ * (whose weakly connected components are returned) look at all remaining edges.
+ *
+ * Strongly connected components follow the Multistep method (Slota et al.): vertices without
+ * incoming or outgoing edges are their own components; a parallel forward and backward search
+ * from a vertex of high degree finds the largest component, which typically covers most of the
+ * graph; the rest is left to an iterative Tarjan's algorithm.
+ * */
+public final class Connectivity {
+	private static final int NEIGHBOR_ROUNDS = 2;
+	private static final int SAMPLES = 1024;
+	private static final int CHUNK = 1024; // Vertices handled by one task
+
+	private Connectivity() {
+	}
+
+	// Return the connected component labels; for directed graphs, the weakly connected ones
+	public static int[] connectedComponents(Graph<?> graph) {
+		UnweightedGraph<?> g = view(graph);
+		int n = g.getSize();
+		ConcurrentUnionFind components = new ConcurrentUnionFind(n);
+		for (int round = 0; round < NEIGHBOR_ROUNDS; round++) {
+			int r = round;
+			forEachChunk(n, v -> {
+				if (g.getDegree(v) > r) {
+					components.union(v, g.getNeighbor(v, r));
+				}
+			});
+			forEachChunk(n, components::compress);
+		}
+
+		int largest = g.isDirected ? -1 : mostFrequentRoot(components, n);
+		forEachChunk(n, v -> {
+			if (components.find(v) != largest) {
+				for (int i = NEIGHBOR_ROUNDS, degree = g.getDegree(v); i < degree; i++) {
+					components.union(v, g.getNeighbor(v, i));
+				}
+			}
+		});
+		forEachChunk(n, components::compress);
+
+		int[] labels = new int[n];
+		forEachChunk(n, v -> labels[v] = components.getParent(v));
+		return labels;
+	}
+
+	// Return the strongly connected component labels; for undirected graphs, the connected ones
+	public static int[] stronglyConnectedComponents(Graph<?> graph) {
+		UnweightedGraph<?> g = view(graph);
+		if (!g.isDirected) {
+			return connectedComponents(g);
+		}
+		int n = g.getSize();
+		UnweightedGraph<?> incoming = g.getIncomingGraph();
+		int[] labels = new int[n];
+		Arrays.fill(labels, -1);
+
+		// Trim: a vertex without incoming or outgoing edges is a component of its own
+		forEachChunk(n, v -> {
+			if (g.getDegree(v) == 0 || incoming.getDegree(v) == 0) {
+				labels[v] = v;
+			}
+		});
+
+		// The component of the vertex with the most edges in both directions
+		int pivot = IntStream.range(0, n).parallel().filter(v -> labels[v] < 0).reduce((u, v) -> {
+			long scoreU = (long)g.getDegree(u) * incoming.getDegree(u);
+			long scoreV = (long)g.getDegree(v) * incoming.getDegree(v);
+			return scoreU > scoreV || (scoreU == scoreV && u < v) ? u : v;
+		}).orElse(-1);
+		if (pivot >= 0) {
+			AtomicIntegerArray forward = reach(g, pivot, labels);
+			AtomicIntegerArray backward = reach(incoming, pivot, labels);
+			int label = IntStream.range(0, n).parallel().filter(v -> isSet(forward, v) && isSet(backward, v)).min().getAsInt();
+			forEachChunk(n, v -> {
+				if (isSet(forward, v) && isSet(backward, v)) {
+					labels[v] = label;
+				}
+			});
+		}
+
+		tarjan(g, labels);
+		return labels;
+	}
+
+	// Return the number of components given their labels
+	public static int countComponents(int[] labels) {
+		return (int)IntStream.range(0, labels.length).parallel().filter(v -> labels[v] == v).count();
+	}
+
+	// The graph to search: ConcurrentGraphs are searched on a snapshot
+	static UnweightedGraph<?> view(Graph<?> graph) {
+		if (graph instanceof UnweightedGraph) {
+			return (UnweightedGraph<?>)graph;
+		} else if (graph instanceof ConcurrentGraph) {
+			return ((ConcurrentGraph<?>)graph).snapshot();
+		}
+		throw new IllegalArgumentException("Unsupported graph: " + graph.getClass().getName());
+	}
+
+	// Return the root shared by the most of SAMPLES random vertices
+	private static int mostFrequentRoot(ConcurrentUnionFind components, int n) {
+		if (n == 0) {
+			return -1;
+		}
+		Random random = new Random(n);
+		LongIntHashMap counts = new LongIntHashMap(SAMPLES);
+		int best = -1;
+		int bestCount = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			int root = components.find(random.nextInt(n));
+			int count = Math.max(counts.get(root), 0) + 1;
+			counts.put(root, count);
+			if (count > bestCount) {
+				best = root;
+				bestCount = count;
+			}
+		}
+		return best;
+	}
+
+	// Return the vertices reachable from source through unlabeled vertices, as a bit set
+	private static AtomicIntegerArray reach(UnweightedGraph<?> graph, int source, int[] labels) {
+		AtomicIntegerArray visited = new AtomicIntegerArray((graph.getSize() + 31) >>> 5);
+		set(visited, source);
+		int[] frontier = {source};
+		while (frontier.length > 0) {
+			int[] current = frontier;
+			IntList[] found = new IntList[(current.length + CHUNK - 1) / CHUNK];
+			IntStream.range(0, found.length).parallel().forEach(c -> {
+				IntList next = new IntList();
+				for (int i = c * CHUNK; i < Math.min(current.length, (c + 1) * CHUNK); i++) {
+					int u = current[i];
+					for (int j = 0, degree = graph.getDegree(u); j < degree; j++) {
+						int w = graph.getNeighbor(u, j);
+						if (labels[w] < 0 && set(visited, w)) {
+							next.addInt(w);
+						}
+					}
+				}
+				found[c] = next;
+			});
+			frontier = ParallelBfs.concatenate(found);
+		}
+		return visited;
+	}
+
+	// Set bit v, return false if it was already set
+	private static boolean set(AtomicIntegerArray bits, int v) {
+		int mask = 1 << v;
+		while (true) {
+			int word = bits.get(v >>> 5);
+			if ((word & mask) != 0) {
+				return false;
+			}
+			if (bits.compareAndSet(v >>> 5, word, word | mask)) {
+				return true;
+			}
+		}
+	}
+
+	private static boolean isSet(AtomicIntegerArray bits, int v) {
+		return (bits.get(v >>> 5) & 1 << v) != 0;
+	}
+
+	// Label the components of the unlabeled vertices with Tarjan's algorithm, keeping the
+	// depth-first search on explicit stacks. Labeled vertices are whole components, so their
+	// edges can be ignored.
+	private static void tarjan(UnweightedGraph<?> graph, int[] labels) {
+		int n = graph.getSize();
+		int[] index = new int[n]; // Discovery order + 1, 0 for undiscovered vertices
+		int[] low = new int[n];
+		int[] next = new int[n]; // The next edge to follow from each vertex on the search path
+		int[] path = new int[n]; // The depth-first search path
+		int[] stack = new int[n]; // Discovered vertices not yet in a component
+		boolean[] isOnStack = new boolean[n];
+		int counter = 0;
+		for (int root = 0; root < n; root++) {
+			if (labels[root] >= 0 || index[root] != 0) {
+				continue;
+			}
+			int depth = 0;
+			int top = 0;
+			path[depth++] = root;
+			index[root] = low[root] = ++counter;
+			stack[top++] = root;
+			isOnStack[root] = true;
+			while (depth > 0) {
+				int u = path[depth - 1];
+				if (next[u] < graph.getDegree(u)) {
+					int w = graph.getNeighbor(u, next[u]++);
+					if (labels[w] >= 0) {
+						continue;
+					}
+					if (index[w] == 0) {
+						index[w] = low[w] = ++counter;
+						stack[top++] = w;
+						isOnStack[w] = true;
+						path[depth++] = w;
+					} else if (isOnStack[w]) {
+						low[u] = Math.min(low[u], index[w]);
+					}
+					continue;
+				}
+				// All edges of u are done
+				depth--;
+				if (depth > 0) {
+					int parent = path[depth - 1];
+					low[parent] = Math.min(low[parent], low[u]);
+				}
+				if (low[u] == index[u]) {
+					// u is the root of a component: the stack above and including u
+					int bottom = top;
+					int label = n;
+					do {
+						label = Math.min(label, stack[--bottom]);
+					} while (stack[bottom] != u);
+					for (int i = bottom; i < top; i++) {
+						labels[stack[i]] = label;
+						isOnStack[stack[i]] = false;
+					}
+					top = bottom;
+				}
+			}
+		}
+	}
+
+	// Run action on every vertex, in parallel chunks
+	private static void forEachChunk(int n, IntConsumer action) {
+		IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(c -> {
+			for (int v = c * CHUNK; v < Math.min(n, (c + 1) * CHUNK); v++) {
+				action.accept(v);
+			}
+		});
+	}
+}
@@ -0,0 +1,433 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Contraction Hierarchies (Geisberger et al.) for fast point-to-point shortest paths on a graph
+ * that does not change, such as a road network.
+ *
+ * Preprocessing contracts the vertices one at a time, least important first. Contracting v
+ * takes it out of the remaining graph and adds a shortcut (u, w) for each pair of edges (u, v)
+ * and (v, w), unless a witness search finds a path from u to w around v that is no longer.
+ * The importance of v is its edge difference (shortcuts needed minus edges removed) plus the
+ * number of its neighbors already contracted; it is recomputed when v reaches the front of the
+ * queue. The rank of a vertex is its position in the contraction order.
+ *
+ * A query runs Dijkstra's algorithm forward from the source and backward from the target, each
+ * following only edges towards higher ranks and skipping (stalling) vertices that a higher
+ * ranked vertex reaches more cheaply. Every shortest path has an up-then-down form in the graph
+ * with shortcuts, so the two searches meet on one after settling few vertices. Shortcuts are
+ * unpacked into the original edges only when a path is asked for.
+ *
+ * The hierarchy is a snapshot: later changes to the graph are not reflected.
+ * */
+public class ContractionHierarchy<V> {
+	// A witness search gives up after settling this many vertices, and the shortcut is kept
+	private static final int WITNESS_SETTLE_LIMIT = 64;
+	private static final ThreadLocal<PointToPoint.Side[]> SIDES =
+			ThreadLocal.withInitial(() -> new PointToPoint.Side[] {new PointToPoint.Side(), new PointToPoint.Side()});
+
+	private final WeightedGraph<V> graph;
+	private final int[] rank;
+	// Edges (u, v) to higher ranked v, in upTargets[upOffsets[u] .. upOffsets[u + 1] - 1]
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upEdges;
+	// Edges (v, u) from higher ranked v, stored at u in downSources[downOffsets[u] .. downOffsets[u + 1] - 1]
+	private final int[] downOffsets;
+	private final int[] downSources;
+	private final double[] downWeights;
+	private final int[] downEdges;
+	// Every edge by id. The shortcut (u, w) through v has the children (u, v) and (v, w); original
+	// edges have no children (-1).
+	private final int[] edgeFrom;
+	private final int[] edgeTo;
+	private final int[] firstChild;
+	private final int[] secondChild;
+	private final double[] edgeWeight;
+	private final int shortcuts;
+	private final long preprocessingNanos;
+
+	// Contract graph; weights must be nonnegative
+	public ContractionHierarchy(WeightedGraph<V> graph) {
+		long start = System.nanoTime();
+		this.graph = graph;
+		int n = graph.getSize();
+		Contraction contraction = new Contraction(graph);
+		contraction.contractAll();
+		rank = contraction.rank;
+		shortcuts = contraction.shortcuts;
+
+		int m = contraction.edges;
+		edgeFrom = Arrays.copyOf(contraction.edgeFrom, m);
+		edgeTo = Arrays.copyOf(contraction.edgeTo, m);
+		firstChild = Arrays.copyOf(contraction.firstChild, m);
+		secondChild = Arrays.copyOf(contraction.secondChild, m);
+		edgeWeight = Arrays.copyOf(contraction.weight, m);
+
+		// Sort every edge into the up list of its tail or the down list of its head
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+				upOffsets[edgeFrom[e] + 1]++;
+			} else {
+				downOffsets[edgeTo[e] + 1]++;
+			}
+		}
+		for (int u = 0; u < n; u++) {
+			upOffsets[u + 1] += upOffsets[u];
+			downOffsets[u + 1] += downOffsets[u];
+		}
+		upTargets = new int[upOffsets[n]];
+		upWeights = new double[upOffsets[n]];
+		upEdges = new int[upOffsets[n]];
+		downSources = new int[downOffsets[n]];
+		downWeights = new double[downOffsets[n]];
+		downEdges = new int[downOffsets[n]];
+		int[] nextUp = Arrays.copyOf(upOffsets, n);
+		int[] nextDown = Arrays.copyOf(downOffsets, n);
+		for (int e = 0; e < m; e++) {
+			int u = edgeFrom[e];
+			int v = edgeTo[e];
+			if (rank[v] > rank[u]) {
+				int i = nextUp[u]++;
+				upTargets[i] = v;
+				upWeights[i] = edgeWeight[e];
+				upEdges[i] = e;
+			} else {
+				int i = nextDown[v]++;
+				downSources[i] = u;
+				downWeights[i] = edgeWeight[e];
+				downEdges[i] = e;
+			}
+		}
+		preprocessingNanos = System.nanoTime() - start;
+	}
+
+	// The state of the preprocessing: the remaining graph with its shortcuts, and the order so far
+	private static final class Contraction {
+		final int n;
+		int[] edgeFrom = new int[16];
+		int[] edgeTo = new int[16];
+		int[] firstChild = new int[16];
+		int[] secondChild = new int[16];
+		double[] weight = new double[16];
+		int edges;
+		// The edges out of and into each vertex whose other end is not contracted
+		final IntList[] out;
+		final IntList[] in;
+		final int[] contractedNeighbors;
+		final int[] rank;
+		final PointToPoint.Side witness = new PointToPoint.Side();
+		int shortcuts;
+
+		Contraction(WeightedGraph<?> graph) {
+			n = graph.getSize();
+			out = new IntList[n];
+			in = new IntList[n];
+			for (int u = 0; u < n; u++) {
+				out[u] = new IntList(4);
+				in[u] = new IntList(4);
+			}
+			contractedNeighbors = new int[n];
+			rank = new int[n];
+			for (int u = 0; u < n; u++) {
+				for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+					int v = graph.getNeighbor(u, i);
+					if (u != v) { // Loops are never on a shortest path
+						addEdge(u, v, graph.getNeighborWeight(u, i), -1, -1);
+					}
+				}
+			}
+		}
+
+		void contractAll() {
+			IndexedMinHeap queue = new IndexedMinHeap(n);
+			for (int v = 0; v < n; v++) {
+				queue.offer(v, priority(v));
+			}
+			int next = 0;
+			while (!queue.isEmpty()) {
+				int v = queue.poll();
+				// Priorities only grow as neighbors are contracted; requeue v if it is no longer the least
+				double priority = priority(v);
+				if (!queue.isEmpty() && priority > queue.peekKey()) {
+					queue.offer(v, priority);
+					continue;
+				}
+				shortcuts += addShortcuts(v, true);
+				rank[v] = next++;
+				for (int i = 0; i < in[v].size(); i++) {
+					int u = edgeFrom[in[v].getInt(i)];
+					removeEdge(out[u], in[v].getInt(i));
+					contractedNeighbors[u]++;
+				}
+				for (int i = 0; i < out[v].size(); i++) {
+					int w = edgeTo[out[v].getInt(i)];
+					removeEdge(in[w], out[v].getInt(i));
+					contractedNeighbors[w]++;
+				}
+			}
+		}
+
+		private int priority(int v) {
+			return addShortcuts(v, false) - in[v].size() - out[v].size() + contractedNeighbors[v];
+		}
+
+		// Return the number of shortcuts contracting v needs; add them if isAdding is true
+		private int addShortcuts(int v, boolean isAdding) {
+			double maxOut = 0;
+			for (int j = 0; j < out[v].size(); j++) {
+				maxOut = Math.max(maxOut, weight[out[v].getInt(j)]);
+			}
+			int count = 0;
+			for (int i = 0; i < in[v].size(); i++) {
+				int first = in[v].getInt(i);
+				int u = edgeFrom[first];
+				searchWitnesses(u, v, weight[first] + maxOut);
+				for (int j = 0; j < out[v].size(); j++) {
+					int second = out[v].getInt(j);
+					int w = edgeTo[second];
+					double cost = weight[first] + weight[second];
+					if (w != u && witness.getCost(w) > cost) {
+						if (!isAdding) {
+							count++;
+						} else if (addEdge(u, w, cost, first, second)) {
+							count++;
+						}
+					}
+				}
+			}
+			return count;
+		}
+
+		// Dijkstra's search from source in the remaining graph without via, up to maxCost
+		private void searchWitnesses(int source, int via, double maxCost) {
+			witness.reset(n);
+			witness.reach(source, 0, -1);
+			witness.queue.offer(source, 0);
+			int settled = 0;
+			while (!witness.queue.isEmpty() && witness.queue.peekKey() <= maxCost && settled++ < WITNESS_SETTLE_LIMIT) {
+				int x = witness.queue.poll();
+				for (int i = 0; i < out[x].size(); i++) {
+					int e = out[x].getInt(i);
+					int y = edgeTo[e];
+					if (y != via && witness.reach(y, witness.getCost(x) + weight[e], x)) {
+						witness.queue.offer(y, witness.getCost(y));
+					}
+				}
+			}
+		}
+
+		// Add the edge (u, w), or lower the weight of the existing one; return true if it is new
+		private boolean addEdge(int u, int w, double cost, int first, int second) {
+			for (int i = 0; i < out[u].size(); i++) {
+				int e = out[u].getInt(i);
+				if (edgeTo[e] == w) {
+					if (cost < weight[e]) {
+						weight[e] = cost;
+						firstChild[e] = first;
+						secondChild[e] = second;
+					}
+					return false;
+				}
+			}
+			if (edges == weight.length) {
+				int capacity = 2 * edges;
+				edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+				edgeTo = Arrays.copyOf(edgeTo, capacity);
+				firstChild = Arrays.copyOf(firstChild, capacity);
+				secondChild = Arrays.copyOf(secondChild, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+			}
+			int e = edges++;
+			edgeFrom[e] = u;
+			edgeTo[e] = w;
+			firstChild[e] = first;
+			secondChild[e] = second;
+			weight[e] = cost;
+			out[u].addInt(e);
+			in[w].addInt(e);
+			return true;
+		}
+
+		private static void removeEdge(IntList list, int e) {
+			for (int i = 0; i < list.size(); i++) {
+				if (list.getInt(i) == e) {
+					list.remove(i);
+					return;
+				}
+			}
+		}
+	}
+
+	// The outcome of a search: the vertex where the searches met and the cost through it
+	private static final class Meeting {
+		int vertex = -1;
+		double cost = Double.POSITIVE_INFINITY;
+		int settled;
+	}
+
+	private Meeting search(int source, int target, PointToPoint.Side forward, PointToPoint.Side backward) {
+		if (source < 0 || source >= rank.length) {
+			throw new IllegalArgumentException("No such index: " + source);
+		}
+		if (target < 0 || target >= rank.length) {
+			throw new IllegalArgumentException("No such index: " + target);
+		}
+		forward.reset(rank.length);
+		backward.reset(rank.length);
+		forward.reach(source, 0, -1);
+		forward.queue.offer(source, 0);
+		backward.reach(target, 0, -1);
+		backward.queue.offer(target, 0);
+
+		Meeting meeting = new Meeting();
+		while (true) {
+			boolean canForward = !forward.queue.isEmpty() && forward.queue.peekKey() < meeting.cost;
+			boolean canBackward = !backward.queue.isEmpty() && backward.queue.peekKey() < meeting.cost;
+			if (!canForward && !canBackward) {
+				break;
+			}
+			boolean isForward = canForward && (!canBackward || forward.queue.peekKey() <= backward.queue.peekKey());
+			PointToPoint.Side side = isForward ? forward : backward;
+			PointToPoint.Side other = isForward ? backward : forward;
+			// The forward search goes up the up edges and is stalled through the down edges, and
+			// the backward search the other way around
+			int[] offsets = isForward ? upOffsets : downOffsets;
+			int[] neighbors = isForward ? upTargets : downSources;
+			double[] weights = isForward ? upWeights : downWeights;
+			int[] edges = isForward ? upEdges : downEdges;
+			int[] stallOffsets = isForward ? downOffsets : upOffsets;
+			int[] stallNeighbors = isForward ? downSources : upTargets;
+			double[] stallWeights = isForward ? downWeights : upWeights;
+
+			int u = side.queue.poll();
+			meeting.settled++;
+			double cost = side.getCost(u);
+			if (other.isReached(u) && cost + other.getCost(u) < meeting.cost) {
+				meeting.cost = cost + other.getCost(u);
+				meeting.vertex = u;
+			}
+			boolean isStalled = false;
+			for (int i = stallOffsets[u]; i < stallOffsets[u + 1] && !isStalled; i++) {
+				isStalled = side.getCost(stallNeighbors[i]) + stallWeights[i] < cost;
+			}
+			if (isStalled) {
+				continue;
+			}
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = neighbors[i];
+				if (side.reach(v, cost + weights[i], edges[i])) {
+					side.queue.offer(v, cost + weights[i]);
+				}
+			}
+		}
+		return meeting;
+	}
+
+	// Return the cost of a shortest path from source to target, infinite if there is none
+	public double getDistance(int source, int target) {
+		PointToPoint.Side[] sides = SIDES.get();
+		return search(source, target, sides[0], sides[1]).cost;
+	}
+
+	// Return a shortest path from source to target with every shortcut unpacked
+	public Path<V> getShortestPath(int source, int target) {
+		PointToPoint.Side[] sides = SIDES.get();
+		Meeting meeting = search(source, target, sides[0], sides[1]);
+		if (meeting.vertex == -1) {
+			return new Path<>(graph, new int[0], Double.POSITIVE_INFINITY, meeting.settled);
+		}
+		IntList edges = unpack(meeting, sides[0], sides[1]);
+		int[] path = new int[edges.size() + 1];
+		path[0] = source;
+		for (int i = 0; i < edges.size(); i++) {
+			path[i + 1] = edgeTo[edges.getInt(i)];
+		}
+		return new Path<>(graph, path, meeting.cost, meeting.settled);
+	}
+
+	// Return the original edges of a shortest path from source to target, empty if there is none
+	public List<WeightedEdge> getShortestPathEdges(int source, int target) {
+		PointToPoint.Side[] sides = SIDES.get();
+		Meeting meeting = search(source, target, sides[0], sides[1]);
+		List<WeightedEdge> path = new ArrayList<>();
+		if (meeting.vertex != -1) {
+			IntList edges = unpack(meeting, sides[0], sides[1]);
+			for (int i = 0; i < edges.size(); i++) {
+				int e = edges.getInt(i);
+				path.add(new WeightedEdge(edgeFrom[e], edgeTo[e], edgeWeight[e]));
+			}
+		}
+		return path;
+	}
+
+	// Return the ids of the original edges on the path through the meeting vertex, in order
+	private IntList unpack(Meeting meeting, PointToPoint.Side forward, PointToPoint.Side backward) {
+		// The edges from the source up to the meeting vertex, last first, then the ones down to the target
+		IntList upPath = new IntList();
+		for (int e = forward.parent[meeting.vertex]; e != -1; e = forward.parent[edgeFrom[e]]) {
+			upPath.addInt(e);
+		}
+		IntList edges = new IntList();
+		IntList stack = new IntList();
+		for (int i = upPath.size() - 1; i >= 0; i--) {
+			unpack(upPath.getInt(i), stack, edges);
+		}
+		for (int e = backward.parent[meeting.vertex]; e != -1; e = backward.parent[edgeTo[e]]) {
+			unpack(e, stack, edges);
+		}
+		return edges;
+	}
+
+	// Append the original edges that edge e stands for to edges
+	private void unpack(int e, IntList stack, IntList edges) {
+		stack.addInt(e);
+		while (stack.size() > 0) {
+			int top = stack.remove(stack.size() - 1);
+			if (firstChild[top] == -1) {
+				edges.addInt(top);
+			} else {
+				stack.addInt(secondChild[top]);
+				stack.addInt(firstChild[top]);
+			}
+		}
+	}
+
+	// Return the position of vertex v in the contraction order
+	public int getRank(int v) {
+		return rank[v];
+	}
+
+	// Return the number of shortcuts added by preprocessing
+	public int getNumberOfShortcuts() {
+		return shortcuts;
+	}
+
+	// Return the number of edges of the hierarchy, shortcuts included
+	public int getNumberOfEdges() {
+		return edgeFrom.length;
+	}
+
+	public double getPreprocessingMillis() {
+		return preprocessingNanos / 1e6;
+	}
+
+	// Return the memory taken by the hierarchy's arrays
+	public long getMemoryBytes() {
+		long ints = rank.length + upOffsets.length + downOffsets.length + 2L * upTargets.length
+				+ 2L * downSources.length + 4L * edgeFrom.length;
+		long doubles = upWeights.length + downWeights.length + edgeWeight.length;
+		return 4 * ints + 8 * doubles;
+	}
+
+	public void printStatistics() {
+		System.out.printf("Contraction hierarchy: %d vertices, %d edges (%d shortcuts), %.1f ms, %.1f MB%n",
+				rank.length, getNumberOfEdges(), shortcuts, getPreprocessingMillis(), getMemoryBytes() / 1e6);
+	}
+}
@@ -0,0 +1,344 @@
+package graphs;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// An immutable snapshot of a graph in compressed sparse row (CSR) form. The neighbors of
+// vertex u are targets[offsets[u]] .. targets[offsets[u + 1] - 1], and for a weighted graph
+// weights[i] is the weight of the edge to targets[i]. Snapshots of unweighted graphs have
+// no weights array and every edge weighs 1.
+public class CsrGraph<V> extends WeightedGraph<V> {
+	final int[] offsets;
+	final int[] targets;
+	final double[] weights;
+	private volatile CsrGraph<V> transpose; // Built on first use for directed graphs
+	private volatile LongIntHashMap edgePositions; // Position in targets of each edge (u, v), built on first lookup
+
+	// Construct a snapshot of graph, see UnweightedGraph.freeze()
+	CsrGraph(UnweightedGraph<V> graph) {
+		this.isDirected = graph.isDirected;
+		this.vertices = Collections.unmodifiableList(new ArrayList<>(graph.getVertices()));
+		indexVertices();
+
+		int n = graph.getSize();
+		offsets = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			offsets[u + 1] = offsets[u] + graph.getDegree(u);
+		}
+		targets = new int[offsets[n]];
+		weights = graph instanceof WeightedGraph ? new double[offsets[n]] : null;
+
+		for (int u = 0; u < n; u++) {
+			int i = offsets[u];
+			for (Edge e : graph.neighbors.get(u)) {
+				targets[i] = e.v;
+				if (weights != null) {
+					weights[i] = e instanceof WeightedEdge ? ((WeightedEdge)e).weight : 1;
+				}
+				i++;
+			}
+		}
+	}
+
+	// Construct a snapshot from CSR arrays, which are used as is; weights may be null
+	public CsrGraph(List<V> vertices, int[] offsets, int[] targets, double[] weights, boolean isDirected) {
+		if (offsets.length != vertices.size() + 1 || offsets[vertices.size()] != targets.length) {
+			throw new IllegalArgumentException("Offsets do not match vertices and targets");
+		}
+		if (weights != null && weights.length != targets.length) {
+			throw new IllegalArgumentException("Weights do not match targets");
+		}
+		this.isDirected = isDirected;
+		this.vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+		indexVertices();
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	private void indexVertices() {
+		vertexIndex.ensureCapacity(vertices.size());
+		for (int i = 0; i < vertices.size(); i++) {
+			vertexIndex.add(vertices.get(i), i);
+		}
+	}
+
+	// Return the number of adjacency entries (each undirected edge counts twice)
+	public int getNumberOfEdges() {
+		return targets.length;
+	}
+
+	// Return true if the snapshot was taken from a weighted graph
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	@Override
+	public CsrGraph<V> freeze() {
+		return this;
+	}
+
+	// Return the graph with every edge reversed; an undirected graph is its own transpose
+	public CsrGraph<V> getTranspose() {
+		if (!isDirected) {
+			return this;
+		}
+		CsrGraph<V> result = transpose;
+		if (result == null) {
+			int n = getSize();
+			int[] reverseOffsets = new int[n + 1];
+			for (int i = 0; i < targets.length; i++) {
+				reverseOffsets[targets[i] + 1]++;
+			}
+			for (int v = 0; v < n; v++) {
+				reverseOffsets[v + 1] += reverseOffsets[v];
+			}
+			int[] next = Arrays.copyOf(reverseOffsets, n);
+			int[] reverseTargets = new int[targets.length];
+			double[] reverseWeights = weights == null ? null : new double[weights.length];
+			for (int u = 0; u < n; u++) {
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int position = next[targets[i]]++;
+					reverseTargets[position] = u;
+					if (weights != null) {
+						reverseWeights[position] = weights[i];
+					}
+				}
+			}
+			result = new CsrGraph<>(vertices, reverseOffsets, reverseTargets, reverseWeights, true);
+			result.transpose = this;
+			transpose = result;
+		}
+		return result;
+	}
+
+	@Override
+	CsrGraph<V> getIncomingGraph() {
+		return getTranspose();
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int index) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		List<Integer> result = new ArrayList<>(getDegree(index));
+		for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+			result.add(targets[i]);
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.NEIGHBORS, start, allocated, 0, result.size(), 0, 0);
+		return result;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	@Override
+	public int getNeighbor(int u, int i) {
+		return targets[offsets[u] + i];
+	}
+
+	@Override
+	public void forEachNeighbor(int index, IntConsumer action) {
+		for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+			action.accept(targets[i]);
+		}
+	}
+
+	@Override
+	public int neighborsInto(int index, int[] dest) {
+		int degree = getDegree(index);
+		System.arraycopy(targets, offsets[index], dest, 0, degree);
+		return degree;
+	}
+
+	@Override
+	public double getNeighborWeight(int u, int i) {
+		return weights == null ? 1 : weights[offsets[u] + i];
+	}
+
+	@Override
+	public void forEachWeightedNeighbor(int u, WeightedNeighborConsumer action) {
+		for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+			action.accept(targets[i], weights == null ? 1 : weights[i]);
+		}
+	}
+
+	@Override
+	void forEachIncomingWeightedNeighbor(int v, WeightedNeighborConsumer action) {
+		getTranspose().forEachWeightedNeighbor(v, action);
+	}
+
+	@Override
+	WeightedEdge getWeightedEdge(int u, int i) {
+		return new WeightedEdge(u, getNeighbor(u, i), getNeighborWeight(u, i));
+	}
+
+	@Override
+	public boolean hasEdge(int u, int v) {
+		return edgePosition(u, v) != -1;
+	}
+
+	@Override
+	public double getWeight(int u, int v) throws Exception {
+		int i = edgePosition(u, v);
+		if (i == -1) {
+			throw new Exception("Edge does not exist");
+		}
+		return weights == null ? 1 : weights[i];
+	}
+
+	// Return the position of the edge (u, v) in targets, or -1 if there is none
+	private int edgePosition(int u, int v) {
+		LongIntHashMap positions = edgePositions;
+		if (positions == null) {
+			positions = new LongIntHashMap(targets.length);
+			for (int w = 0; w < getSize(); w++) {
+				for (int i = offsets[w + 1] - 1; i >= offsets[w]; i--) {
+					positions.put(EdgeIndex.key(w, targets[i]), i); // The first of parallel edges wins
+				}
+			}
+			edgePositions = positions;
+		}
+		return positions.get(EdgeIndex.key(u, v));
+	}
+
+	@Override
+	public void printEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				System.out.print("(" + getVertex(u) + ", " + getVertex(targets[i]) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void printWeightedEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				System.out.print("(" + u + ", " + targets[i] + ", " + (weights == null ? 1.0 : weights[i]) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public boolean addVertex(V vertex) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public boolean addEdge(Edge e) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public boolean remove(V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public boolean remove(int u, int v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public boolean setWeight(int u, int v, double weight) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public int removeVertices(Collection<V> toRemove) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override
+	public int removeEdges(int[] us, int[] vs) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	@Override // Starting bfs search from vertex v
+	public SearchTree bfs(int v) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		int n = getSize();
+		int[] parent = new int[n];
+		Arrays.fill(parent, -1);
+		boolean[] isVisited = new boolean[n];
+
+		// Vertices are dequeued in search order, so the queue doubles as the search order
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = v;
+		isVisited[v] = true;
+		long scanned = 0;
+
+		while (head < tail) {
+			int u = queue[head++];
+			scanned += offsets[u + 1] - offsets[u];
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int w = targets[i];
+				if (!isVisited[w]) {
+					queue[tail++] = w;
+					parent[w] = u;
+					isVisited[w] = true;
+				}
+			}
+		}
+		IntList searchOrder = new IntList(tail);
+		for (int i = 0; i < tail; i++) {
+			searchOrder.addInt(queue[i]);
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.BFS, start, allocated, tail, scanned, 0, 0);
+		return new SearchTree(v, parent, searchOrder);
+	}
+
+	@Override
+	public ShortestPathTree getShortestPath(int sourceVertex) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		int n = getSize();
+		double[] cost = new double[n];
+		Arrays.fill(cost, Double.POSITIVE_INFINITY);
+		cost[sourceVertex] = 0;
+		int[] parent = new int[n];
+		Arrays.fill(parent, -1);
+		IntList T = new IntList();
+		boolean[] isSettled = new boolean[n];
+		IndexedMinHeap queue = new IndexedMinHeap(n);
+		queue.offer(sourceVertex, 0);
+		long scanned = 0;
+		long relaxations = 0;
+
+		while (!queue.isEmpty()) {
+			int u = queue.poll();
+			isSettled[u] = true;
+			T.addInt(u);
+			scanned += offsets[u + 1] - offsets[u];
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				double newCost = cost[u] + (weights == null ? 1 : weights[i]);
+				if (!isSettled[v] && cost[v] > newCost) {
+					cost[v] = newCost;
+					parent[v] = u;
+					queue.offer(v, newCost);
+					relaxations++;
+				}
+			}
+		}
+		// Every relaxation and the source were offered, every settled vertex polled
+		GraphMetrics.record(GraphMetrics.Algorithm.SHORTEST_PATH, start, allocated, T.size(), scanned, relaxations,
+				relaxations + 1 + T.size());
+		return new ShortestPathTree(sourceVertex, parent, T, cost);
+	}
+}
@@ -0,0 +1,435 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/*
+ * A spanning tree whose vertices have degree at most maxDegree, of small total weight. Finding
+ * the cheapest one is NP-hard (maxDegree 2 asks for a Hamiltonian path), so this is a heuristic
+ * in three steps, each run on a forest stored as parent pointers:
+ *
+ *   construct  Kruskal's algorithm that also rejects edges at a vertex of degree maxDegree
+ *   repair     join the fragments the degree cap left apart: an edge (a, b) with b full
+ *              replaces a tree edge (b, c), and c's side is reattached by an edge from c
+ *   improve    local search: a non-tree edge e replaces the heaviest edge on its tree path
+ *              whose removal keeps both ends of e within the cap. Only edges at full vertices
+ *              can improve on Kruskal's choice, so the search starts from the edges the cap
+ *              rejected and revisits the edges of every vertex whose degree drops.
+ *
+ * Given a time limit, workers on every core repeat the three steps on randomized edge orders
+ * (nearby edges of the sorted order swapped) and the cheapest tree is kept. Run 0 always uses
+ * the sorted order, so a time limit never gives a worse tree than none.
+ * */
+final class DegreeConstrainedMST {
+	private static final int SHUFFLE_WINDOW = 16; // How far a randomized order moves an edge
+
+	private DegreeConstrainedMST() {
+	}
+
+	static <V> WeightedGraph<V>.MST search(WeightedGraph<V> graph, int maxDegree, long timeLimitMillis) {
+		if (maxDegree < 1) {
+			throw new IllegalArgumentException("Maximum degree must be positive: " + maxDegree);
+		}
+		long deadline = System.nanoTime() + timeLimitMillis * 1_000_000;
+		Problem problem = new Problem(graph, maxDegree);
+
+		Tree best = problem.solve(0, Long.MAX_VALUE);
+		if (timeLimitMillis > 0) {
+			AtomicInteger runs = new AtomicInteger(1);
+			Tree[] bests = new Tree[ForkJoinPool.getCommonPoolParallelism()];
+			IntStream.range(0, bests.length).parallel().forEach(worker -> {
+				while (System.nanoTime() < deadline) {
+					Tree tree = problem.solve(runs.getAndIncrement(), deadline);
+					if (tree != null && (bests[worker] == null || tree.weight < bests[worker].weight)) {
+						bests[worker] = tree;
+					}
+				}
+			});
+			for (Tree tree : bests) {
+				if (tree != null && (best == null || tree.weight < best.weight)) {
+					best = tree;
+				}
+			}
+		}
+		if (best == null) {
+			throw new IllegalStateException("No spanning tree with maximum degree " + maxDegree + " was found");
+		}
+
+		WeightedEdge[] selected = new WeightedEdge[problem.edges.length];
+		int count = 0;
+		for (int e = 0; e < problem.edges.length; e++) {
+			if (best.isInTree[e]) {
+				selected[count++] = problem.edges[e];
+			}
+		}
+		return SpanningForest.toMST(graph, 0, true, selected, count);
+	}
+
+	// A forest found by one run: which edges it uses and its weight
+	private static final class Tree {
+		final boolean[] isInTree;
+		final double weight;
+
+		Tree(boolean[] isInTree, double weight) {
+			this.isInTree = isInTree;
+			this.weight = weight;
+		}
+	}
+
+	// The input shared by all runs: the edges sorted by weight and the edges at each vertex
+	private static final class Problem {
+		final int n;
+		final int maxDegree;
+		final WeightedEdge[] edges;
+		final int[] from;
+		final int[] to;
+		final double[] weight;
+		final int[] offsets; // The edges at vertex u are incident[offsets[u] .. offsets[u + 1] - 1]
+		final int[] incident;
+		final int components; // Trees in a spanning forest of the whole graph
+
+		Problem(WeightedGraph<?> graph, int maxDegree) {
+			this.n = graph.getSize();
+			this.maxDegree = maxDegree;
+			edges = SpanningForest.collectEdges(graph);
+			Arrays.parallelSort(edges); // WeightedEdge orders by weight
+			int m = edges.length;
+			from = new int[m];
+			to = new int[m];
+			weight = new double[m];
+			offsets = new int[n + 1];
+			UnionFind all = new UnionFind(n);
+			for (int e = 0; e < m; e++) {
+				from[e] = edges[e].u;
+				to[e] = edges[e].v;
+				weight[e] = edges[e].weight;
+				offsets[from[e] + 1]++;
+				offsets[to[e] + 1]++;
+				all.union(from[e], to[e]);
+			}
+			components = all.getCount();
+			for (int u = 0; u < n; u++) {
+				offsets[u + 1] += offsets[u];
+			}
+			incident = new int[2 * m];
+			int[] next = Arrays.copyOf(offsets, n);
+			for (int e = 0; e < m; e++) {
+				incident[next[from[e]]++] = e;
+				incident[next[to[e]]++] = e;
+			}
+		}
+
+		// Run the three steps on the edge order of the given run, return null if repair fails
+		Tree solve(int run, long deadline) {
+			Search search = new Search(this);
+			int[] order = new int[from.length];
+			for (int e = 0; e < order.length; e++) {
+				order[e] = e;
+			}
+			if (run > 0) {
+				Random random = new Random(run);
+				for (int i = 0; i < order.length - 1; i++) {
+					int j = i + random.nextInt(Math.min(SHUFFLE_WINDOW, order.length - i));
+					int temp = order[i];
+					order[i] = order[j];
+					order[j] = temp;
+				}
+			}
+			search.construct(order);
+			if (!search.repair()) {
+				return null;
+			}
+			search.improve(deadline);
+			return new Tree(search.isInTree, search.totalWeight);
+		}
+	}
+
+	// The state of one run. The forest is stored as parent pointers, parentEdge[v] being the edge
+	// from v to parent[v]; linking two trees reroots one of them.
+	private static final class Search {
+		private final Problem problem;
+		private final int maxDegree;
+		private final int[] parent;
+		private final int[] parentEdge;
+		private final int[] degree;
+		final boolean[] isInTree;
+		double totalWeight;
+
+		// Marks of the two climbs that find a tree path, by stamp
+		private final int[] markA;
+		private final int[] markB;
+		private int stamp;
+
+		// The edges waiting for the local search, in FIFO order
+		private final int[] queue;
+		private final boolean[] isQueued;
+		private int head;
+		private int size;
+
+		Search(Problem problem) {
+			this.problem = problem;
+			this.maxDegree = problem.maxDegree;
+			int n = problem.n;
+			int m = problem.from.length;
+			parent = new int[n];
+			Arrays.fill(parent, -1);
+			parentEdge = new int[n];
+			degree = new int[n];
+			isInTree = new boolean[m];
+			markA = new int[n];
+			markB = new int[n];
+			queue = new int[m];
+			isQueued = new boolean[m];
+		}
+
+		// Degree-capped Kruskal; queue the edges the cap rejected
+		void construct(int[] order) {
+			UnionFind fragments = new UnionFind(problem.n);
+			for (int e : order) {
+				int u = problem.from[e];
+				int v = problem.to[e];
+				if (fragments.connected(u, v)) {
+					continue;
+				}
+				if (degree[u] < maxDegree && degree[v] < maxDegree) {
+					// Reroot the smaller tree, so a vertex is rerooted at most log n times
+					if (fragments.getSize(u) <= fragments.getSize(v)) {
+						link(u, v, e);
+					} else {
+						link(v, u, e);
+					}
+					fragments.union(u, v);
+				} else {
+					enqueue(e);
+				}
+			}
+		}
+
+		// Join fragments until there are as many as components of the graph, or return false
+		// when a pass over all edges joins none
+		boolean repair() {
+			int fragments = problem.n;
+			for (int e = 0; e < isInTree.length; e++) {
+				if (isInTree[e]) {
+					fragments--;
+				}
+			}
+			boolean isJoined = true;
+			while (fragments > problem.components && isJoined) {
+				isJoined = false;
+				UnionFind trees = currentTrees();
+				for (int e = 0; e < isInTree.length && fragments > problem.components; e++) {
+					int a = problem.from[e];
+					int b = problem.to[e];
+					if (isInTree[e] || trees.connected(a, b)) {
+						continue;
+					}
+					if (degree[a] < maxDegree && degree[b] < maxDegree) {
+						link(a, b, e);
+						trees.union(a, b);
+					} else if (degree[a] < maxDegree ? rehang(a, b, e) : degree[b] < maxDegree && rehang(b, a, e)) {
+						trees = currentTrees(); // A rehang moves part of a tree to another
+					} else {
+						continue;
+					}
+					fragments--;
+					isJoined = true;
+				}
+			}
+			return fragments == problem.components;
+		}
+
+		private UnionFind currentTrees() {
+			UnionFind trees = new UnionFind(problem.n);
+			for (int v = 0; v < problem.n; v++) {
+				if (parent[v] >= 0) {
+					trees.union(v, parent[v]);
+				}
+			}
+			return trees;
+		}
+
+		// Add edge e from a to the full vertex b in another tree: find a tree edge (b, c) and an edge
+		// (c, q) to a vertex q with room that is not on c's side of (b, c), then swap (b, c) for both
+		private boolean rehang(int a, int b, int e) {
+			for (int i = problem.offsets[b]; i < problem.offsets[b + 1]; i++) {
+				int g = problem.incident[i];
+				if (!isInTree[g]) {
+					continue;
+				}
+				int c = other(g, b);
+				for (int j = problem.offsets[c]; j < problem.offsets[c + 1]; j++) {
+					int h = problem.incident[j];
+					int q = other(h, c);
+					if (isInTree[h] || q == c || q == b || degree[q] + (q == a ? 1 : 0) >= maxDegree || isOnSide(q, b, c)) {
+						continue;
+					}
+					cut(g);
+					link(a, b, e);
+					link(c, q, h);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// Return true if q stays connected to c when the tree edge (b, c) is removed
+		private boolean isOnSide(int q, int b, int c) {
+			if (parent[c] == b) {
+				return isAncestor(c, q);
+			}
+			return root(q) == root(b) && !isAncestor(b, q);
+		}
+
+		// Replace tree edges by cheaper non-tree edges until the queue is empty or the deadline passes
+		void improve(long deadline) {
+			int checked = 0;
+			while (size > 0 && ((++checked & 1023) != 0 || System.nanoTime() < deadline)) {
+				int e = queue[head];
+				head = head + 1 == queue.length ? 0 : head + 1;
+				size--;
+				isQueued[e] = false;
+				if (!isInTree[e]) {
+					exchange(e);
+				}
+			}
+		}
+
+		// Swap edge e into the tree if that lowers the weight and keeps its ends within the cap
+		private void exchange(int e) {
+			int a = problem.from[e];
+			int b = problem.to[e];
+			int lca = lowestCommonAncestor(a, b);
+			if (lca < 0) {
+				return;
+			}
+			// The heaviest removable edge on the path, named by its lower end
+			int best = -1;
+			double bestWeight = problem.weight[e];
+			for (int side = 0; side < 2; side++) {
+				for (int v = side == 0 ? a : b; v != lca; v = parent[v]) {
+					int f = parentEdge[v];
+					if (problem.weight[f] > bestWeight && fits(a, f) && fits(b, f)) {
+						best = v;
+						bestWeight = problem.weight[f];
+					}
+				}
+			}
+			if (best < 0) {
+				return;
+			}
+			int f = parentEdge[best];
+			boolean isOnASide = isAncestor(best, a);
+			cut(f);
+			if (isOnASide) {
+				link(a, b, e);
+			} else {
+				link(b, a, e);
+			}
+			// The ends of f gained room, so their other edges may now improve the tree
+			for (int end : new int[] {problem.from[f], problem.to[f]}) {
+				if (degree[end] == maxDegree - 1) {
+					for (int i = problem.offsets[end]; i < problem.offsets[end + 1]; i++) {
+						enqueue(problem.incident[i]);
+					}
+				}
+			}
+		}
+
+		// Return true if vertex u stays within the cap when edge f is swapped for an edge at u
+		private boolean fits(int u, int f) {
+			return degree[u] < maxDegree || problem.from[f] == u || problem.to[f] == u;
+		}
+
+		// Climb from a and b in turns until one climb meets the other; return -1 for different trees
+		private int lowestCommonAncestor(int a, int b) {
+			stamp++;
+			markA[a] = stamp;
+			markB[b] = stamp;
+			while (a >= 0 || b >= 0) {
+				if (a >= 0) {
+					if (markB[a] == stamp) {
+						return a;
+					}
+					a = parent[a];
+					if (a >= 0) {
+						markA[a] = stamp;
+					}
+				}
+				if (b >= 0) {
+					if (markA[b] == stamp) {
+						return b;
+					}
+					b = parent[b];
+					if (b >= 0) {
+						markB[b] = stamp;
+					}
+				}
+			}
+			return -1;
+		}
+
+		// Return true if v lies on the path from u up to its root
+		private boolean isAncestor(int v, int u) {
+			for (; u >= 0; u = parent[u]) {
+				if (u == v) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int root(int u) {
+			while (parent[u] >= 0) {
+				u = parent[u];
+			}
+			return u;
+		}
+
+		private int other(int e, int u) {
+			return problem.from[e] == u ? problem.to[e] : problem.from[e];
+		}
+
+		// Add edge e, making u (whose tree is rerooted at u) a child of v in another tree
+		private void link(int u, int v, int e) {
+			// Reverse the parent pointers from u up to its root
+			int previous = v;
+			int previousEdge = e;
+			while (u >= 0) {
+				int next = parent[u];
+				int nextEdge = parentEdge[u];
+				parent[u] = previous;
+				parentEdge[u] = previousEdge;
+				previous = u;
+				previousEdge = nextEdge;
+				u = next;
+			}
+			isInTree[e] = true;
+			degree[problem.from[e]]++;
+			degree[problem.to[e]]++;
+			totalWeight += problem.weight[e];
+		}
+
+		// Remove the tree edge e; its lower end becomes the root of its subtree
+		private void cut(int e) {
+			int child = parent[problem.from[e]] >= 0 && parentEdge[problem.from[e]] == e ? problem.from[e] : problem.to[e];
+			parent[child] = -1;
+			isInTree[e] = false;
+			degree[problem.from[e]]--;
+			degree[problem.to[e]]--;
+			totalWeight -= problem.weight[e];
+		}
+
+		private void enqueue(int e) {
+			if (!isQueued[e] && !isInTree[e]) {
+				isQueued[e] = true;
+				int tail = head + size;
+				queue[tail >= queue.length ? tail - queue.length : tail] = e;
+				size++;
+			}
+		}
+	}
+}
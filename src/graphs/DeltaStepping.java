@@ -0,0 +1,262 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/*
+ * Parallel single-source shortest paths by delta-stepping (Meyer and Sanders). Vertices wait in
+ * buckets of width delta by tentative cost. The lowest nonempty bucket is emptied in rounds:
+ * every round relaxes the light edges (weight <= delta) of the vertices in the bucket in
+ * parallel, which may put vertices back into it. Once it stays empty, the heavy edges of all
+ * vertices that passed through it are relaxed once, since they can only reach later buckets.
+ *
+ * A relaxation step runs in two parallel phases so that no two threads write the same vertex.
+ * First chunks of the frontier collect requests (v, cost, parent), sorted by the part of the
+ * vertices that owns v. Then each part applies the requests for its vertices, in chunk order.
+ * With the same pool size, every run returns the same tree; the costs never depend on it.
+ *
+ * A small delta does little work per round but needs many rounds, as Dijkstra's algorithm
+ * does; a large one needs few rounds but may relax an edge several times, as Bellman-Ford
+ * does. The default, the largest weight over the average degree, suits random weights.
+ *
+ * Waiting costs lie within the largest weight above the bucket being emptied, so as in Meyer
+ * and Sanders the buckets are a cyclic array of ceil(maxWeight / delta) + 1 of them, and empty
+ * ones are skipped. A delta that would need more than MAX_BUCKETS buckets is rejected.
+ * */
+final class DeltaStepping {
+	// Frontier vertices handled by one task
+	private static final int CHUNK = 1024;
+	// The most buckets a search may allocate
+	static final int MAX_BUCKETS = 1 << 22;
+
+	private DeltaStepping() {
+	}
+
+	static <V> WeightedGraph<V>.ShortestPathTree search(WeightedGraph<V> graph, int source, double delta) {
+		int n = graph.getSize();
+		if (source < 0 || source >= n) {
+			throw new IllegalArgumentException("No such index: " + source);
+		}
+		if (!(delta > 0)) {
+			throw new IllegalArgumentException("Delta must be positive: " + delta);
+		}
+		Search search = new Search(graph, delta);
+		search.cost[source] = 0;
+		search.buckets.add(0, source);
+		IntList searchOrder = search.run();
+		return graph.new ShortestPathTree(source, search.parent, searchOrder, search.cost);
+	}
+
+	// Return the largest edge weight over the average degree, or 1 if there are no edges
+	static double defaultDelta(WeightedGraph<?> graph) {
+		int n = graph.getSize();
+		long edges = IntStream.range(0, n).parallel().mapToLong(graph::getDegree).sum();
+		double delta = maxWeight(graph) * n / Math.max(edges, 1);
+		return delta > 0 && delta < Double.POSITIVE_INFINITY ? delta : 1;
+	}
+
+	// Return the largest edge weight, or 0 if there are no edges
+	private static double maxWeight(WeightedGraph<?> graph) {
+		return IntStream.range(0, graph.getSize()).parallel().mapToDouble(u -> {
+			double max = 0;
+			for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+				max = Math.max(max, graph.getNeighborWeight(u, i));
+			}
+			return max;
+		}).max().orElse(0);
+	}
+
+	// Return the number of buckets a search with delta needs: a relaxation from bucket i reaches
+	// at most bucket i + ceil(maxWeight / delta), plus one bucket for rounding of the costs
+	private static int bucketCount(WeightedGraph<?> graph, double delta) {
+		double maxWeight = maxWeight(graph);
+		double count = Math.ceil(maxWeight / delta) + 2;
+		if (!(count <= MAX_BUCKETS)) {
+			throw new IllegalArgumentException("Delta too small for the largest weight " + maxWeight + ": " + delta);
+		}
+		return (int)count;
+	}
+
+	private static final class Search {
+		final WeightedGraph<?> graph;
+		final double delta;
+		final int parts;
+		final double[] cost;
+		final int[] parent;
+		final Buckets buckets;
+
+		Search(WeightedGraph<?> graph, double delta) {
+			this.graph = graph;
+			this.delta = delta;
+			this.buckets = new Buckets(bucketCount(graph, delta));
+			// One part per worker of the pool the search runs in
+			this.parts = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism()
+					: ForkJoinPool.getCommonPoolParallelism();
+			int n = graph.getSize();
+			cost = new double[n];
+			parent = new int[n];
+			Arrays.fill(cost, Double.POSITIVE_INFINITY);
+			Arrays.fill(parent, -1);
+		}
+
+		// Empty the buckets in order, return the vertices in the order their costs became final
+		IntList run() {
+			int n = graph.getSize();
+			int[] round = new int[n]; // round[v] == r iff v is in the frontier of round r
+			int[] lastPhase = new int[n]; // The last phase (bucket emptied) v was in a frontier of
+			IntList searchOrder = new IntList();
+			int r = 0;
+			int phase = 0;
+			for (long i = buckets.next(0); i != -1; i = buckets.next(i + 1)) {
+				phase++;
+				IntList done = new IntList(); // The vertices that passed through bucket i
+				for (IntList bucket = buckets.take(i); bucket != null; bucket = buckets.take(i)) {
+					r++;
+					IntList frontier = new IntList(bucket.size());
+					for (int k = 0; k < bucket.size(); k++) {
+						int v = bucket.getInt(k);
+						// Skip repeats and vertices that have since moved to a lower bucket
+						if (round[v] != r && bucketOf(cost[v]) == i) {
+							round[v] = r;
+							frontier.addInt(v);
+							if (lastPhase[v] != phase) {
+								lastPhase[v] = phase;
+								done.addInt(v);
+							}
+						}
+					}
+					relax(frontier, true);
+				}
+				relax(done, false);
+				for (int k = 0; k < done.size(); k++) {
+					searchOrder.addInt(done.getInt(k));
+				}
+			}
+			return searchOrder;
+		}
+
+		// Relax the light or the heavy edges out of vertices
+		private void relax(IntList vertices, boolean isLight) {
+			int chunks = (vertices.size() + CHUNK - 1) / CHUNK;
+			int parts = chunks > 1 ? this.parts : 1;
+			Requests[][] requests = new Requests[chunks][parts];
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				Requests[] found = requests[c];
+				for (int k = c * CHUNK; k < Math.min(vertices.size(), (c + 1) * CHUNK); k++) {
+					int u = vertices.getInt(k);
+					for (int j = 0, degree = graph.getDegree(u); j < degree; j++) {
+						double weight = graph.getNeighborWeight(u, j);
+						if ((weight <= delta) != isLight) {
+							continue;
+						}
+						int v = graph.getNeighbor(u, j);
+						double newCost = cost[u] + weight;
+						if (newCost < cost[v]) { // Costs only change in the phase below
+							int part = v % parts;
+							if (found[part] == null) {
+								found[part] = new Requests();
+							}
+							found[part].add(v, u, newCost);
+						}
+					}
+				}
+			});
+
+			IntList[] improved = new IntList[parts];
+			IntStream.range(0, parts).parallel().forEach(p -> {
+				IntList changed = new IntList();
+				for (int c = 0; c < chunks; c++) {
+					Requests part = requests[c][p];
+					for (int k = 0; part != null && k < part.size; k++) {
+						int v = part.targets[k];
+						if (part.costs[k] < cost[v]) {
+							cost[v] = part.costs[k];
+							parent[v] = part.parents[k];
+							changed.addInt(v);
+						}
+					}
+				}
+				improved[p] = changed;
+			});
+			for (IntList changed : improved) {
+				for (int k = 0; k < changed.size(); k++) {
+					int v = changed.getInt(k);
+					buckets.add(bucketOf(cost[v]), v);
+				}
+			}
+		}
+
+		private long bucketOf(double c) {
+			return (long)(c / delta);
+		}
+	}
+
+	// Relaxation requests for the vertices of one part, found by one chunk
+	private static final class Requests {
+		int[] targets = new int[16];
+		int[] parents = new int[16];
+		double[] costs = new double[16];
+		int size;
+
+		void add(int v, int u, double cost) {
+			if (size == targets.length) {
+				targets = Arrays.copyOf(targets, 2 * size);
+				parents = Arrays.copyOf(parents, 2 * size);
+				costs = Arrays.copyOf(costs, 2 * size);
+			}
+			targets[size] = v;
+			parents[size] = u;
+			costs[size++] = cost;
+		}
+	}
+
+	// Bucket i holds the vertices with cost in [i * delta, (i + 1) * delta), and possibly stale
+	// entries. Only the buckets from the one being emptied to the last one a relaxation can
+	// reach hold vertices, so bucket i is kept in slot i % slots.length.
+	private static final class Buckets {
+		private final IntList[] slots;
+		private final BitSet isNonEmpty; // The slots that hold a bucket
+
+		Buckets(int count) {
+			slots = new IntList[count];
+			isNonEmpty = new BitSet(count);
+		}
+
+		void add(long i, int v) {
+			int slot = slot(i);
+			if (slots[slot] == null) {
+				slots[slot] = new IntList();
+				isNonEmpty.set(slot);
+			}
+			slots[slot].addInt(v);
+		}
+
+		// Remove and return the vertices of bucket i, or null if it is empty
+		IntList take(long i) {
+			int slot = slot(i);
+			IntList bucket = slots[slot];
+			slots[slot] = null;
+			isNonEmpty.clear(slot);
+			return bucket;
+		}
+
+		// Return the first nonempty bucket from i on, or -1 if all are empty; every bucket
+		// before i must be empty
+		long next(long i) {
+			int slot = slot(i);
+			int found = isNonEmpty.nextSetBit(slot);
+			if (found != -1) {
+				return i + found - slot;
+			}
+			found = isNonEmpty.nextSetBit(0);
+			return found == -1 ? -1 : i + found + slots.length - slot;
+		}
+
+		private int slot(long i) {
+			return (int)(i % slots.length);
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Single-source shortest paths that stay up to date while the graph changes. The tree listens
+ * to its graph and queues the edges that change; the next query repairs the costs in the style
+ * of Ramalingam and Reps:
+ *  - A vertex whose tree path uses an edge that got heavier or was removed is affected. The
+ *    costs of affected vertices are reset and restarted from their unaffected in-neighbors.
+ *  - The edges out of the tail of every changed edge are relaxed, which picks up the edges
+ *    that got lighter or were added.
+ * One Dijkstra search from these seeds then settles only the vertices whose cost can change.
+ * If vertices are removed, or the queued changes or affected vertices exceed a quarter of the
+ * vertices, the tree is recomputed from scratch instead. Weights must be nonnegative.
+ * */
+public class DynamicShortestPathTree<V> implements GraphListener {
+	// Recompute from scratch when more than this share of the vertices would be repaired
+	private static final double RECOMPUTE_FRACTION = 0.25;
+
+	private final WeightedGraph<V> graph;
+	private final V source;
+	private double[] cost; // cost[v] is the cost of the path from the source to v
+	private int[] parent; // parent[v] is the previous vertex on that path, -1 for the source and unreached vertices
+	private IndexedMinHeap queue;
+	private boolean[] isAffected; // All false between repairs
+
+	private final IntList heavierEdges = new IntList(); // Pairs u, v of edges that got heavier or were removed
+	private final IntList changedTails = new IntList(); // Vertices whose outgoing edges changed
+	private boolean isStale; // Recompute from scratch on the next query
+	private long repairs;
+	private long recomputations;
+
+	// Compute the shortest paths from sourceVertex and keep them up to date as graph changes
+	public DynamicShortestPathTree(WeightedGraph<V> graph, int sourceVertex) {
+		this.graph = graph;
+		this.source = graph.getVertex(sourceVertex);
+		recompute();
+		graph.addGraphListener(this);
+	}
+
+	// Stop following the changes of the graph; later queries may return stale results
+	public void detach() {
+		graph.removeGraphListener(this);
+	}
+
+	// Return the index of the source vertex
+	public int getSource() {
+		return graph.getIndex(source);
+	}
+
+	// Return the cost of the path from the source to v
+	public double getCost(int v) {
+		update();
+		return cost[v];
+	}
+
+	// Return the previous vertex on the path from the source to v
+	public int getParent(int v) {
+		update();
+		return parent[v];
+	}
+
+	// Return the path from v back to the source, empty if v is unreached
+	public List<V> getPath(int v) {
+		update();
+		List<V> path = new ArrayList<>();
+		if (cost[v] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+		for (int u = v; u != -1; u = parent[u]) {
+			path.add(graph.getVertex(u));
+		}
+		return path;
+	}
+
+	// Return a copy of the current paths, ordered like those of WeightedGraph.getShortestPath
+	public WeightedGraph<V>.ShortestPathTree getShortestPathTree() {
+		update();
+		IntList reached = new IntList();
+		for (int v = 0; v < graph.getSize(); v++) {
+			if (cost[v] != Double.POSITIVE_INFINITY) {
+				reached.addInt(v);
+			}
+		}
+		Integer[] order = reached.toArray(new Integer[0]);
+		Arrays.sort(order, (a, b) -> Double.compare(cost[a], cost[b]));
+		IntList searchOrder = new IntList(order.length);
+		for (int v : order) {
+			searchOrder.addInt(v);
+		}
+		int n = graph.getSize();
+		return graph.new ShortestPathTree(getSource(), Arrays.copyOf(parent, n), searchOrder, Arrays.copyOf(cost, n));
+	}
+
+	// Return how many times queued changes were repaired incrementally
+	public long getNumberOfRepairs() {
+		return repairs;
+	}
+
+	// Return how many times the paths were computed from scratch, including the first time
+	public long getNumberOfRecomputations() {
+		return recomputations;
+	}
+
+	@Override
+	public void edgeAdded(int u, int v, double weight) {
+		queue(u, v, false);
+	}
+
+	@Override
+	public void edgeRemoved(int u, int v, double weight) {
+		queue(u, v, true);
+	}
+
+	@Override
+	public void weightChanged(int u, int v, double oldWeight, double newWeight) {
+		queue(u, v, newWeight > oldWeight);
+	}
+
+	@Override
+	public void verticesRemoved() {
+		markStale();
+	}
+
+	private void queue(int u, int v, boolean isHeavier) {
+		if (isStale) {
+			return;
+		}
+		if (isHeavier) {
+			heavierEdges.addInt(u);
+			heavierEdges.addInt(v);
+		}
+		changedTails.addInt(u);
+		if (!graph.isDirected) {
+			changedTails.addInt(v);
+		}
+		if (changedTails.size() > RECOMPUTE_FRACTION * graph.getSize()) {
+			markStale();
+		}
+	}
+
+	private void markStale() {
+		isStale = true;
+		heavierEdges.clear();
+		changedTails.clear();
+	}
+
+	// Bring the paths up to date with the queued changes
+	private void update() {
+		if (isStale) {
+			recompute();
+			return;
+		}
+		int n = graph.getSize();
+		if (cost.length < n) { // Vertices were added since the last query
+			int oldSize = cost.length;
+			cost = Arrays.copyOf(cost, n);
+			Arrays.fill(cost, oldSize, n, Double.POSITIVE_INFINITY);
+			parent = Arrays.copyOf(parent, n);
+			Arrays.fill(parent, oldSize, n, -1);
+			isAffected = Arrays.copyOf(isAffected, n);
+			queue = new IndexedMinHeap(n);
+		}
+		if (changedTails.isEmpty()) {
+			return;
+		}
+
+		// The subtrees below tree edges that got heavier or were removed
+		IntList affected = new IntList();
+		for (int i = 0; i < heavierEdges.size(); i += 2) {
+			int u = heavierEdges.getInt(i);
+			int v = heavierEdges.getInt(i + 1);
+			markSubtree(u, v, affected);
+			if (!graph.isDirected) {
+				markSubtree(v, u, affected);
+			}
+		}
+		for (int i = 0; i < affected.size(); i++) {
+			int x = affected.getInt(i);
+			for (int j = 0, degree = graph.getDegree(x); j < degree; j++) {
+				markSubtree(x, graph.getNeighbor(x, j), affected);
+			}
+			if (affected.size() > RECOMPUTE_FRACTION * n) {
+				for (int k = 0; k < affected.size(); k++) {
+					isAffected[affected.getInt(k)] = false;
+				}
+				recompute();
+				return;
+			}
+		}
+
+		// Restart the affected vertices from their best unaffected in-neighbor
+		for (int i = 0; i < affected.size(); i++) {
+			int x = affected.getInt(i);
+			cost[x] = Double.POSITIVE_INFINITY;
+			parent[x] = -1;
+		}
+		for (int i = 0; i < affected.size(); i++) {
+			int x = affected.getInt(i);
+			graph.forEachIncomingWeightedNeighbor(x, (w, weight) -> {
+				if (!isAffected[w]) {
+					relax(w, x, weight);
+				}
+			});
+		}
+		for (int i = 0; i < affected.size(); i++) {
+			isAffected[affected.getInt(i)] = false;
+		}
+
+		// Edges that got lighter or were added start from the tail of a changed edge
+		for (int i = 0; i < changedTails.size(); i++) {
+			relaxFrom(changedTails.getInt(i));
+		}
+		search();
+		heavierEdges.clear();
+		changedTails.clear();
+		repairs++;
+	}
+
+	// Mark v and queue it in affected if u is its parent
+	private void markSubtree(int u, int v, IntList affected) {
+		if (parent[v] == u && !isAffected[v]) {
+			isAffected[v] = true;
+			affected.addInt(v);
+		}
+	}
+
+	// Compute all paths from scratch
+	private void recompute() {
+		int s = graph.getIndex(source);
+		if (s == -1) {
+			throw new IllegalStateException("The source vertex was removed");
+		}
+		int n = graph.getSize();
+		cost = new double[n];
+		Arrays.fill(cost, Double.POSITIVE_INFINITY);
+		parent = new int[n];
+		Arrays.fill(parent, -1);
+		isAffected = new boolean[n];
+		queue = new IndexedMinHeap(n);
+		cost[s] = 0;
+		queue.offer(s, 0);
+		search();
+		isStale = false;
+		heavierEdges.clear();
+		changedTails.clear();
+		recomputations++;
+	}
+
+	// Dijkstra's search from the vertices in queue
+	private void search() {
+		while (!queue.isEmpty()) {
+			relaxFrom(queue.poll());
+		}
+	}
+
+	private void relaxFrom(int u) {
+		if (cost[u] != Double.POSITIVE_INFINITY) {
+			for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+				relax(u, graph.getNeighbor(u, i), graph.getNeighborWeight(u, i));
+			}
+		}
+	}
+
+	private void relax(int u, int v, double weight) {
+		double newCost = cost[u] + weight;
+		if (newCost < cost[v]) {
+			cost[v] = newCost;
+			parent[v] = u;
+			queue.offer(v, newCost);
+		}
+	}
+}
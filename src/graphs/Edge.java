@@ -9,7 +9,16 @@ public class Edge {
 		this.v = v;
 	}
 	
+	// Return the edge (v, u)
+	public Edge reverse() {
+		return new Edge(v, u);
+	}
+	
 	public boolean equals(Object o) {
 		return u == ((Edge)o).u && v == ((Edge)o).v;
 	}
+	
+	public int hashCode() {
+		return 31 * u + v;
+	}
 }
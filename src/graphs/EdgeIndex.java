@@ -0,0 +1,200 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Open-addressing hash table of the edges of a graph keyed by the pair (u, v),
+// giving constant time lookup of an edge from its endpoints. The graph also keeps here where
+// each edge sits in its adjacency lists, so an edge can be removed or replaced in constant time.
+public class EdgeIndex {
+	private static final float LOAD_FACTOR = 0.5f;
+	
+	private long[] keys;
+	private Edge[] edges; // null marks a free slot
+	private int[] positions; // Index of the edge in the neighbor list of its u, or -1
+	private int[] incomingPositions; // Index of the edge in the incoming list of its v, or -1
+	private int mask;
+	private int size;
+	
+	public EdgeIndex() {
+		this(16);
+	}
+	
+	public EdgeIndex(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+	
+	// Return the key for the edge (u, v)
+	public static long key(int u, int v) {
+		return ((long)u << 32) | (v & 0xFFFFFFFFL);
+	}
+	
+	// Return the number of indexed edges
+	public int size() {
+		return size;
+	}
+	
+	// Return the edge (u, v), or null if there is none
+	public Edge get(int u, int v) {
+		int slot = find(u, v);
+		return slot == -1 ? null : edges[slot];
+	}
+	
+	public boolean contains(int u, int v) {
+		return get(u, v) != null;
+	}
+	
+	// Index e under (e.u, e.v), return the edge it replaced or null. A replacing edge keeps
+	// the list positions of the edge it replaces.
+	public Edge put(Edge e) {
+		int slot = find(e.u, e.v);
+		return slot == -1 ? put(e, -1, -1) : put(e, positions[slot], incomingPositions[slot]);
+	}
+	
+	// Index e under (e.u, e.v) at the given list positions, return the edge it replaced or null
+	Edge put(Edge e, int position, int incomingPosition) {
+		long key = key(e.u, e.v);
+		int slot = slot(key);
+		for (; edges[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				Edge old = edges[slot];
+				edges[slot] = e;
+				positions[slot] = position;
+				incomingPositions[slot] = incomingPosition;
+				return old;
+			}
+		}
+		keys[slot] = key;
+		edges[slot] = e;
+		positions[slot] = position;
+		incomingPositions[slot] = incomingPosition;
+		if (++size > (mask + 1) * LOAD_FACTOR) {
+			rehash(keys.length * 2);
+		}
+		return null;
+	}
+	
+	// Return the index of the edge (u, v) in the neighbor list of u, or -1
+	int position(int u, int v) {
+		int slot = find(u, v);
+		return slot == -1 ? -1 : positions[slot];
+	}
+	
+	// Return the index of the edge (u, v) in the incoming list of v, or -1
+	int incomingPosition(int u, int v) {
+		int slot = find(u, v);
+		return slot == -1 ? -1 : incomingPositions[slot];
+	}
+	
+	// Record that the edge (u, v), if indexed, is now at position in the neighbor list of u
+	void setPosition(int u, int v, int position) {
+		int slot = find(u, v);
+		if (slot != -1) {
+			positions[slot] = position;
+		}
+	}
+	
+	// Record that the edge (u, v), if indexed, is now at position in the incoming list of v
+	void setIncomingPosition(int u, int v, int position) {
+		int slot = find(u, v);
+		if (slot != -1) {
+			incomingPositions[slot] = position;
+		}
+	}
+	
+	// Remove the edge (u, v), return it or null if there is none
+	public Edge remove(int u, int v) {
+		int slot = find(u, v);
+		if (slot == -1) {
+			return null;
+		}
+		Edge old = edges[slot];
+		shiftBack(slot);
+		size--;
+		return old;
+	}
+	
+	// Return the slot of the edge (u, v), or -1 if there is none
+	private int find(int u, int v) {
+		long key = key(u, v);
+		for (int slot = slot(key); edges[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+	
+	public void clear() {
+		Arrays.fill(edges, null);
+		size = 0;
+	}
+	
+	// Grow the table so that expectedSize edges fit without rehashing
+	public void ensureCapacity(int expectedSize) {
+		int capacity = tableSizeFor(expectedSize);
+		if (capacity > keys.length) {
+			rehash(capacity);
+		}
+	}
+	
+	// Close the gap at slot by moving back entries whose probe sequence passes through it
+	private void shiftBack(int gap) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (edges[slot] == null) {
+				break;
+			}
+			int home = slot(keys[slot]);
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				edges[gap] = edges[slot];
+				positions[gap] = positions[slot];
+				incomingPositions[gap] = incomingPositions[slot];
+				gap = slot;
+			}
+		}
+		edges[gap] = null;
+	}
+	
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Edge[] oldEdges = edges;
+		int[] oldPositions = positions;
+		int[] oldIncomingPositions = incomingPositions;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldEdges[i] != null) {
+				int slot = slot(oldKeys[i]);
+				while (edges[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				edges[slot] = oldEdges[i];
+				positions[slot] = oldPositions[i];
+				incomingPositions[slot] = oldIncomingPositions[i];
+			}
+		}
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		edges = new Edge[capacity];
+		positions = new int[capacity];
+		incomingPositions = new int[capacity];
+		mask = capacity - 1;
+	}
+	
+	private static int tableSizeFor(int expectedSize) {
+		long needed = (long)Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+		if (needed > 1 << 30) {
+			throw new IllegalArgumentException("Index too large: " + expectedSize);
+		}
+		return Integer.highestOneBit((int)needed - 1) << 1;
+	}
+}
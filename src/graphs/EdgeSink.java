@@ -0,0 +1,9 @@
+package graphs;
+
+// Receives generated edges in batches: edge i goes from sources[i] to destinations[i] with
+// weight weights[i], for i < count. weights is null for unweighted edges. The arrays are
+// reused after accept returns. Batches arrive one at a time and in a fixed order.
+@FunctionalInterface
+public interface EdgeSink {
+	public void accept(int[] sources, int[] destinations, double[] weights, int count);
+}
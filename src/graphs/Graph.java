@@ -1,6 +1,7 @@
 package graphs;
 
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public interface Graph<V> {
 	// Return number of vertices in graph
@@ -18,6 +19,25 @@ public interface Graph<V> {
 	// Return the neighbors of vertex with the specified index
 	public List<Integer> getNeighbors(int index);
 	
+	// Return the i-th neighbor of vertex with the specified index, for 0 <= i < getDegree(index)
+	public int getNeighbor(int index, int i);
+	
+	// Pass each neighbor of vertex with the specified index to action, without boxing
+	public default void forEachNeighbor(int index, IntConsumer action) {
+		for (int i = 0, degree = getDegree(index); i < degree; i++) {
+			action.accept(getNeighbor(index, i));
+		}
+	}
+	
+	// Copy the neighbors of vertex with the specified index into dest, return how many were copied
+	public default int neighborsInto(int index, int[] dest) {
+		int degree = getDegree(index);
+		for (int i = 0; i < degree; i++) {
+			dest[i] = getNeighbor(index, i);
+		}
+		return degree;
+	}
+	
 	// Return the degree for the specified vertex
 	public int getDegree(int v);
 	
@@ -30,13 +50,17 @@ public interface Graph<V> {
 	// Add a vertex to the graph
 	public boolean addVertex(V vertex);
 	
+	// Return true if the graph has the edge (u, v)
+	public boolean hasEdge(int u, int v);
+	
 	// Add an Edge to the graph
 	public boolean addEdge(int u, int v);
 	
 	// Add and Edge to the graph
 	public boolean addEdge(Edge e);
 	
-	// Remove a vertex v from the graph, return true if successful
+	// Remove a vertex v from the graph, return true if successful.
+	// The index of another vertex may change; look it up again with getIndex.
 	public boolean remove(V v);
 	
 	// Remove an edge (u, v) from the graph, return true if successful
@@ -0,0 +1,381 @@
+package graphs;
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/*
+ * A quick benchmark driver for the graph algorithms that needs only the JDK. The JMH
+ * benchmarks in jmh/graphs (./gradlew jmh) measure the same workloads in forked JVMs; use
+ * them for numbers to compare between changes. GraphState and the JMH benchmarks build their
+ * workloads with generate() and build() here.
+ *
+ * Every benchmark runs on every workload (Erdos-Renyi, R-MAT, Barabasi-Albert, random
+ * geometric, grid, path) at every size, for the list-backed WeightedGraph, its CSR snapshot, a
+ * snapshot of a ConcurrentGraph, and a GraphFile mapped from a temporary file written once per
+ * workload and size, so the build benchmark of the mapped graph measures only mapping. After warm-up
+ * iterations each measured call is timed on its own. The report gives throughput, latency
+ * percentiles, bytes allocated per call by the calling thread, and GC activity during
+ * measurement.
+ *
+ * Usage: GraphBenchmarks [options]
+ *   --benchmarks build,neighbors,bfs,parallelBfs,dfs,shortestPath,     (default all)
+ *                cachedPaths,pointToPoint,manyToMany,mst,pageRank
+ *   --workloads er,rmat,ba,geometric,grid,path                            (default all)
+ *   --sizes 4096,65536,1048576          approximate number of vertices
+ *   --warmup 5 --iterations 20          calls per benchmark
+ *   --seed 42
+ *   --metrics true                      record GraphMetrics during the run and print them
+ *   --csv results.csv                   write the results as CSV
+ *   --baseline baseline.csv             compare with an earlier CSV run and exit with
+ *   --threshold 0.10                    status 1 if p50 latency or allocation regressed
+ *                                       by more than the threshold
+ * */
+public class GraphBenchmarks {
+	private static final String[] BENCHMARKS = {"build", "neighbors", "bfs", "parallelBfs", "dfs", "shortestPath", "cachedPaths", "pointToPoint", "manyToMany", "mst", "pageRank"};
+	private static final String[] WORKLOADS = {"er", "rmat", "ba", "geometric", "grid", "path"};
+	private static final String[] REPRESENTATIONS = {"list", "csr", "concurrent", "mapped"};
+	private static final String CSV_HEADER = "benchmark,workload,representation,vertices,edges,"
+			+ "opsPerSecond,p50Micros,p90Micros,p99Micros,maxMicros,bytesPerOp,gcCount,gcMillis";
+
+	// Results are folded into this field so the JIT cannot drop the benchmarked calls
+	static volatile long sink;
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = parseOptions(args);
+		List<String> benchmarks = list(options, "benchmarks", BENCHMARKS);
+		List<String> workloads = list(options, "workloads", WORKLOADS);
+		List<String> sizes = list(options, "sizes", new String[] {"4096", "65536", "1048576"});
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+		int iterations = Integer.parseInt(options.getOrDefault("iterations", "20"));
+		long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		if (Boolean.parseBoolean(options.getOrDefault("metrics", "false"))) {
+			GraphMetrics.enable();
+		}
+
+		List<Result> results = new ArrayList<>();
+		System.out.println(Result.TABLE_HEADER);
+		for (String workload : workloads) {
+			for (String size : sizes) {
+				GraphBuilder<Integer> builder = generate(workload, Integer.parseInt(size), seed);
+				File file = writeGraphFile(builder);
+				try {
+					for (String representation : REPRESENTATIONS) {
+						WeightedGraph<Integer> graph = build(representation, builder, file);
+						for (String benchmark : benchmarks) {
+							Result result = run(benchmark, workload, representation, builder, file, graph, warmup, iterations, seed);
+							results.add(result);
+							System.out.println(result.toTableRow());
+						}
+					}
+				} finally {
+					deleteGraphFile(file);
+				}
+			}
+		}
+		if (GraphMetrics.isEnabled()) {
+			System.out.println();
+			GraphMetrics.print();
+		}
+
+		if (options.containsKey("csv")) {
+			try (PrintWriter out = new PrintWriter(new FileWriter(options.get("csv")))) {
+				out.println(CSV_HEADER);
+				for (Result result : results) {
+					out.println(result.toCsvRow());
+				}
+			}
+		}
+		if (options.containsKey("baseline")) {
+			double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.10"));
+			if (compare(results, options.get("baseline"), threshold) > 0) {
+				System.exit(1);
+			}
+		}
+	}
+
+	// Generate a workload with about n vertices and an average degree around 8 where the shape allows
+	static GraphBuilder<Integer> generate(String workload, int n, long seed) {
+		switch (workload) {
+			case "er":
+				return GraphGenerators.erdosRenyi(n, 4 * n, seed);
+			case "rmat":
+				return GraphGenerators.rmat(32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1)), 4, seed);
+			case "ba":
+				return GraphGenerators.barabasiAlbert(n, 4, seed);
+			case "geometric":
+				return GraphGenerators.randomGeometric(n, Math.sqrt(8 / Math.PI / n), seed);
+			case "grid":
+				int side = (int)Math.ceil(Math.sqrt(n));
+				return GraphGenerators.grid(side, side, seed);
+			case "path":
+				return GraphGenerators.path(n, seed);
+			default:
+				throw new IllegalArgumentException("Unknown workload: " + workload);
+		}
+	}
+
+	// Build the graph of builder in representation; the mapped representation maps file, which
+	// holds the same graph (see writeGraphFile)
+	static WeightedGraph<Integer> build(String representation, GraphBuilder<Integer> builder, File file) {
+		switch (representation) {
+			case "csr":
+				return builder.buildCsr();
+			case "concurrent":
+				return new ConcurrentGraph<>(builder.buildWeightedGraph()).snapshot();
+			case "mapped":
+				try {
+					return GraphFile.map(file);
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			default:
+				return builder.buildWeightedGraph();
+		}
+	}
+
+	// Write the graph of builder to a new temporary file for the mapped representation
+	static File writeGraphFile(GraphBuilder<Integer> builder) {
+		try {
+			File file = File.createTempFile("graph", ".bin");
+			GraphFile.write(builder.buildCsr(), file);
+			return file;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	// Delete a file from writeGraphFile. Mappings of it are only released by the garbage collector,
+	// so where a mapped file cannot be deleted (Windows) it is deleted on exit.
+	static void deleteGraphFile(File file) {
+		if (!file.delete() && file.exists()) {
+			file.deleteOnExit();
+		}
+	}
+
+	private static Result run(String benchmark, String workload, String representation, GraphBuilder<Integer> builder,
+			File file, WeightedGraph<Integer> graph, int warmup, int iterations, long seed) {
+		Random random = new Random(seed);
+		Runnable operation = operation(benchmark, representation, builder, file, graph, random);
+
+		for (int i = 0; i < warmup; i++) {
+			operation.run();
+		}
+
+		long[] latencies = new long[iterations];
+		long gcCount = gcCount();
+		long gcMillis = gcMillis();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			long t = System.nanoTime();
+			operation.run();
+			latencies[i] = System.nanoTime() - t;
+		}
+		long elapsed = System.nanoTime() - start;
+		allocated = allocated < 0 ? -1 : (allocatedBytes() - allocated) / iterations;
+
+		Arrays.sort(latencies);
+		Result result = new Result();
+		result.benchmark = benchmark;
+		result.workload = workload;
+		result.representation = representation;
+		result.vertices = graph.getSize();
+		result.edges = 0;
+		for (int u = 0; u < graph.getSize(); u++) {
+			result.edges += graph.getDegree(u);
+		}
+		result.opsPerSecond = iterations / (elapsed / 1e9);
+		result.p50 = percentile(latencies, 0.50);
+		result.p90 = percentile(latencies, 0.90);
+		result.p99 = percentile(latencies, 0.99);
+		result.max = latencies[latencies.length - 1] / 1e3;
+		result.bytesPerOp = allocated;
+		result.gcCount = gcCount() - gcCount;
+		result.gcMillis = gcMillis() - gcMillis;
+		return result;
+	}
+
+	private static Runnable operation(String benchmark, String representation, GraphBuilder<Integer> builder,
+			File file, WeightedGraph<Integer> graph, Random random) {
+		int n = graph.getSize();
+		switch (benchmark) {
+			case "build":
+				return () -> sink += build(representation, builder, file).getSize();
+			case "neighbors":
+				return () -> {
+					long sum = 0;
+					for (int u = 0; u < n; u++) {
+						sum += graph.getNeighbors(u).size();
+					}
+					sink += sum;
+				};
+			case "bfs":
+				return () -> sink += graph.bfs(random.nextInt(n)).getNumberOfVerticesFound();
+			case "parallelBfs":
+				return () -> sink += graph.parallelBfs(random.nextInt(n)).getNumberOfVerticesFound();
+			case "dfs":
+				return () -> sink += graph.dfs(random.nextInt(n)).getNumberOfVerticesFound();
+			case "shortestPath":
+				return () -> sink += graph.getShortestPath(random.nextInt(n)).getNumberOfVerticesFound();
+			case "cachedPaths":
+				// Heavy-tailed sources: 32 hot vertices take 90% of the queries
+				ShortestPathCache<Integer> cache = new ShortestPathCache<>(graph, 64, 1L << 28);
+				return () -> {
+					int source = random.nextInt(10) == 0 ? random.nextInt(n) : random.nextInt(Math.min(n, 32));
+					sink += cache.getShortestPath(source).getNumberOfVerticesFound();
+				};
+			case "pointToPoint":
+				return () -> sink += graph.getShortestPath(random.nextInt(n), random.nextInt(n)).getLength();
+			case "manyToMany":
+				// A 16 x 16 table between random vertices
+				return () -> {
+					int[] sources = random.ints(16, 0, n).toArray();
+					int[] targets = random.ints(16, 0, n).toArray();
+					sink += (long)graph.getDistances(sources, targets)[0][0];
+				};
+			case "mst":
+				return () -> sink += (long)graph.getMinimumSpanningTree(random.nextInt(n)).getTotalWeight();
+			case "pageRank":
+				return () -> sink += (long)(Centrality.pageRank(graph)[random.nextInt(n)] * n);
+			default:
+				throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+		}
+	}
+
+	// Print the results that got slower or allocate more than the baseline, return how many did
+	private static int compare(List<Result> results, String baselineFile, double threshold) throws IOException {
+		Map<String, Result> baseline = new HashMap<>();
+		try (BufferedReader in = new BufferedReader(new FileReader(baselineFile))) {
+			in.readLine(); // Header
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				Result result = Result.fromCsvRow(line);
+				baseline.put(result.key(), result);
+			}
+		}
+
+		int regressions = 0;
+		System.out.println();
+		System.out.println("Compared with " + baselineFile + " (threshold " + (threshold * 100) + "%):");
+		for (Result result : results) {
+			Result old = baseline.get(result.key());
+			if (old == null) {
+				continue;
+			}
+			boolean slower = result.p50 > old.p50 * (1 + threshold);
+			boolean allocates = old.bytesPerOp >= 0 && result.bytesPerOp > old.bytesPerOp * (1 + threshold) + 1024;
+			if (slower || allocates) {
+				regressions++;
+				System.out.printf("REGRESSION %s: p50 %.1f -> %.1f us, %d -> %d bytes/op%n",
+						result.key(), old.p50, result.p50, old.bytesPerOp, result.bytesPerOp);
+			}
+		}
+		System.out.println(regressions + " regression(s)");
+		return regressions;
+	}
+
+	// Return the latency at fraction q of the sorted latencies, in microseconds
+	private static double percentile(long[] sorted, double q) {
+		int index = (int)Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1);
+		return sorted[Math.max(index, 0)] / 1e3;
+	}
+
+	// Bytes allocated so far by the current thread, or -1 if the JVM cannot tell
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+			if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+				return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(gc.getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(gc.getCollectionTime(), 0);
+		}
+		return millis;
+	}
+
+	// Parse "--name value" pairs
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 == args.length) {
+				throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+
+	private static List<String> list(Map<String, String> options, String name, String[] defaults) {
+		return options.containsKey(name) ? Arrays.asList(options.get(name).split(",")) : Arrays.asList(defaults);
+	}
+
+	// One row of the report
+	private static class Result {
+		static final String TABLE_HEADER = String.format("%-13s %-5s %-10s %9s %10s %12s %10s %10s %10s %12s %5s",
+				"benchmark", "load", "repr", "vertices", "edges", "ops/s", "p50 us", "p99 us", "max us", "bytes/op", "gc");
+
+		String benchmark;
+		String workload;
+		String representation;
+		int vertices;
+		long edges;
+		double opsPerSecond;
+		double p50;
+		double p90;
+		double p99;
+		double max;
+		long bytesPerOp;
+		long gcCount;
+		long gcMillis;
+
+		String key() {
+			return benchmark + "/" + workload + "/" + representation + "/" + vertices;
+		}
+
+		String toTableRow() {
+			return String.format("%-13s %-5s %-10s %9d %10d %12.1f %10.1f %10.1f %10.1f %12d %5d",
+					benchmark, workload, representation, vertices, edges, opsPerSecond, p50, p99, max, bytesPerOp, gcCount);
+		}
+
+		String toCsvRow() {
+			return String.join(",", benchmark, workload, representation, String.valueOf(vertices), String.valueOf(edges),
+					String.valueOf(opsPerSecond), String.valueOf(p50), String.valueOf(p90), String.valueOf(p99),
+					String.valueOf(max), String.valueOf(bytesPerOp), String.valueOf(gcCount), String.valueOf(gcMillis));
+		}
+
+		static Result fromCsvRow(String line) {
+			String[] fields = line.split(",");
+			Result result = new Result();
+			result.benchmark = fields[0];
+			result.workload = fields[1];
+			result.representation = fields[2];
+			result.vertices = Integer.parseInt(fields[3]);
+			result.edges = Long.parseLong(fields[4]);
+			result.opsPerSecond = Double.parseDouble(fields[5]);
+			result.p50 = Double.parseDouble(fields[6]);
+			result.p90 = Double.parseDouble(fields[7]);
+			result.p99 = Double.parseDouble(fields[8]);
+			result.max = Double.parseDouble(fields[9]);
+			result.bytesPerOp = Long.parseLong(fields[10]);
+			result.gcCount = Long.parseLong(fields[11]);
+			result.gcMillis = Long.parseLong(fields[12]);
+			return result;
+		}
+	}
+}
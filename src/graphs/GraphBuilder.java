@@ -0,0 +1,446 @@
+package graphs;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/*
+ * Builds graphs in bulk from primitive edge arrays. Edges are buffered in int/double arrays,
+ * then the adjacency is laid out with a parallel counting sort: count the entries of every
+ * row, take prefix sums to get row offsets and scatter the edges into their rows. No Edge
+ * objects are created unless a mutable graph is requested.
+ *
+ * Rows keep the order in which edges were added. With deduplicate set, rows are sorted by
+ * target instead, and parallel edges are merged keeping the smallest weight.
+ * */
+public class GraphBuilder<V> {
+	// Rows at least this long are sorted with quicksort, shorter ones with insertion sort
+	private static final int INSERTION_SORT_THRESHOLD = 24;
+	// Vertices per bucket of the first counting-sort pass, and the largest number of buckets
+	private static final int BUCKET_VERTICES = 1 << 16;
+	private static final int MAX_BUCKETS = 4096;
+
+	private List<V> vertices;
+	private boolean isDirected;
+	private boolean deduplicate;
+
+	// Buffered edges: (sources[i], destinations[i]) with weight weights[i]
+	private int[] sources = new int[16];
+	private int[] destinations = new int[16];
+	private double[] weights; // null until the first weighted edge is added
+	private int numberOfEdges;
+
+	// Build a graph with integer vertices 0, 1, ..., numberOfVertices - 1
+	@SuppressWarnings("unchecked")
+	public GraphBuilder(int numberOfVertices) {
+		vertices = new ArrayList<>(numberOfVertices);
+		for (int i = 0; i < numberOfVertices; i++) {
+			vertices.add((V)(Integer.valueOf(i)));
+		}
+	}
+
+	// Build a graph over the given vertices; edges refer to positions in this list
+	public GraphBuilder(List<V> vertices) {
+		this.vertices = new ArrayList<>(vertices);
+	}
+
+	// Add the integer vertices getSize(), ..., numberOfVertices - 1 (see GraphReader)
+	@SuppressWarnings("unchecked")
+	void ensureIntegerVertices(int numberOfVertices) {
+		for (int i = vertices.size(); i < numberOfVertices; i++) {
+			vertices.add((V)(Integer.valueOf(i)));
+		}
+	}
+
+	// Return the number of vertices
+	public int getSize() {
+		return vertices.size();
+	}
+
+	// Store each edge in one direction only (default false)
+	public GraphBuilder<V> directed(boolean isDirected) {
+		this.isDirected = isDirected;
+		return this;
+	}
+
+	// Merge parallel edges, keeping the smallest weight (default false)
+	public GraphBuilder<V> deduplicate(boolean deduplicate) {
+		this.deduplicate = deduplicate;
+		return this;
+	}
+
+	// Reserve room for numberOfEdges more edges
+	public GraphBuilder<V> expectEdges(int numberOfEdges) {
+		ensureCapacity((long)this.numberOfEdges + numberOfEdges);
+		return this;
+	}
+
+	// Return the number of edges added so far
+	public int getNumberOfEdges() {
+		return numberOfEdges;
+	}
+
+	// Add the edge (u, v) with weight 1
+	public GraphBuilder<V> addEdge(int u, int v) {
+		ensureCapacity(numberOfEdges + 1L);
+		sources[numberOfEdges] = u;
+		destinations[numberOfEdges] = v;
+		if (weights != null) {
+			weights[numberOfEdges] = 1;
+		}
+		numberOfEdges++;
+		return this;
+	}
+
+	// Add the edge (u, v) with the given weight
+	public GraphBuilder<V> addEdge(int u, int v, double weight) {
+		ensureWeights();
+		addEdge(u, v);
+		weights[numberOfEdges - 1] = weight;
+		return this;
+	}
+
+	// Add the edges (src[i], dst[i]) with weight 1
+	public GraphBuilder<V> addEdges(int[] src, int[] dst) {
+		return addEdges(src, dst, null, 0, src.length);
+	}
+
+	// Add the edges (src[i], dst[i]) with weight w[i]
+	public GraphBuilder<V> addEdges(int[] src, int[] dst, double[] w) {
+		return addEdges(src, dst, w, 0, src.length);
+	}
+
+	// Add the edges (src[i], dst[i]) for from <= i < to, weighted by w[i] unless w is null
+	public GraphBuilder<V> addEdges(int[] src, int[] dst, double[] w, int from, int to) {
+		if (dst.length < to || (w != null && w.length < to)) {
+			throw new IllegalArgumentException("Edge arrays have different lengths");
+		}
+		int count = to - from;
+		ensureCapacity((long)numberOfEdges + count);
+		System.arraycopy(src, from, sources, numberOfEdges, count);
+		System.arraycopy(dst, from, destinations, numberOfEdges, count);
+		if (w != null) {
+			ensureWeights();
+			System.arraycopy(w, from, weights, numberOfEdges, count);
+		} else if (weights != null) {
+			Arrays.fill(weights, numberOfEdges, numberOfEdges + count, 1);
+		}
+		numberOfEdges += count;
+		return this;
+	}
+
+	// Build an immutable CSR graph; it is weighted if any weighted edge was added
+	public CsrGraph<V> buildCsr() {
+		Rows rows = layOut(deduplicate);
+		return new CsrGraph<>(vertices, rows.offsets, rows.targets, rows.weights, isDirected);
+	}
+
+	// Build a mutable unweighted graph. Mutable graphs never hold parallel edges, so these
+	// are always merged as if deduplicate were set.
+	public UnweightedGraph<V> buildUnweightedGraph() {
+		Rows rows = layOut(true);
+		UnweightedGraph<V> graph = new UnweightedGraph<>(vertices, new ArrayList<Edge>(), isDirected);
+		fill(graph, rows, false);
+		return graph;
+	}
+
+	// Build a mutable weighted graph; edges added without a weight weigh 1. Parallel edges
+	// are always merged as if deduplicate were set.
+	public WeightedGraph<V> buildWeightedGraph() {
+		Rows rows = layOut(true);
+		WeightedGraph<V> graph = new WeightedGraph<>(vertices, new ArrayList<WeightedEdge>(), isDirected);
+		fill(graph, rows, true);
+		return graph;
+	}
+
+	// Create the adjacency lists of graph from rows, in parallel over vertices
+	private void fill(UnweightedGraph<V> graph, Rows rows, boolean isWeighted) {
+		IntStream.range(0, vertices.size()).parallel().forEach(u -> {
+			List<Edge> list = new ArrayList<>(rows.offsets[u + 1] - rows.offsets[u]);
+			for (int i = rows.offsets[u]; i < rows.offsets[u + 1]; i++) {
+				list.add(isWeighted
+						? new WeightedEdge(u, rows.targets[i], rows.weights == null ? 1 : rows.weights[i])
+						: new Edge(u, rows.targets[i]));
+			}
+			graph.neighbors.set(u, list);
+		});
+		graph.edgeIndex.ensureCapacity(rows.targets.length);
+		for (List<Edge> list : graph.neighbors) {
+			for (int i = 0; i < list.size(); i++) {
+				Edge e = list.get(i);
+				if (isDirected) {
+					List<Edge> into = graph.incoming.get(e.v);
+					into.add(e);
+					graph.edgeIndex.put(e, i, into.size() - 1);
+				} else {
+					graph.edgeIndex.put(e, i, -1);
+				}
+			}
+		}
+	}
+
+	// CSR arrays produced by layOut
+	private static class Rows {
+		int[] offsets;
+		int[] targets;
+		double[] weights;
+	}
+
+	// Lay out the buffered edges as CSR rows in two counting-sort passes. The first pass
+	// partitions the entries into buckets of consecutive source vertices, each edge chunk
+	// writing its own slice of every bucket; the second lays out each bucket's rows. Both
+	// passes are stable, so rows keep the order in which edges were added.
+	private Rows layOut(boolean deduplicate) {
+		int n = vertices.size();
+		int m = numberOfEdges;
+		int[] src = sources;
+		int[] dst = destinations;
+		double[] w = weights;
+		boolean isDirected = this.isDirected;
+
+		int chunks = chunks(m);
+		int buckets = Math.max(1, Math.min(MAX_BUCKETS, (n + BUCKET_VERTICES - 1) / BUCKET_VERTICES));
+		int bucketSize = Math.max(1, (n + buckets - 1) / buckets); // Vertices per bucket
+
+		// counts[c][b] is the number of entries chunk c puts in bucket b; an undirected edge
+		// (u, v) gives the entries (u, v) and (v, u)
+		long[][] counts = new long[chunks][buckets];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long[] count = counts[c];
+			for (int i = chunkStart(c, chunks, m); i < chunkStart(c + 1, chunks, m); i++) {
+				int u = src[i];
+				int v = dst[i];
+				if (u < 0 || u >= n) {
+					throw new IllegalArgumentException("No such index: " + u);
+				}
+				if (v < 0 || v >= n) {
+					throw new IllegalArgumentException("No such index: " + v);
+				}
+				count[u / bucketSize]++;
+				if (!isDirected && u != v) {
+					count[v / bucketSize]++;
+				}
+			}
+		});
+
+		// Turn the counts into start positions, bucket by bucket and chunk by chunk
+		long[] bucketStart = new long[buckets + 1];
+		long total = 0;
+		for (int b = 0; b < buckets; b++) {
+			bucketStart[b] = total;
+			for (int c = 0; c < chunks; c++) {
+				long count = counts[c][b];
+				counts[c][b] = total;
+				total += count;
+			}
+		}
+		bucketStart[buckets] = total;
+		if (total > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many edges for a CSR layout: " + total);
+		}
+
+		// Pass 1: partition the entries by bucket
+		int[] entrySources = new int[(int)total];
+		int[] entryTargets = new int[(int)total];
+		double[] entryWeights = w == null ? null : new double[(int)total];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long[] next = counts[c];
+			for (int i = chunkStart(c, chunks, m); i < chunkStart(c + 1, chunks, m); i++) {
+				int u = src[i];
+				int v = dst[i];
+				int position = (int)next[u / bucketSize]++;
+				entrySources[position] = u;
+				entryTargets[position] = v;
+				if (entryWeights != null) {
+					entryWeights[position] = w[i];
+				}
+				if (!isDirected && u != v) {
+					position = (int)next[v / bucketSize]++;
+					entrySources[position] = v;
+					entryTargets[position] = u;
+					if (entryWeights != null) {
+						entryWeights[position] = w[i];
+					}
+				}
+			}
+		});
+
+		// Pass 2: within every bucket, count the degrees and place the entries in their rows
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[(int)total];
+		double[] rowWeights = w == null ? null : new double[(int)total];
+		IntStream.range(0, buckets).parallel().forEach(b -> {
+			int first = Math.min(n, b * bucketSize); // First vertex of the bucket
+			int last = Math.min(n, first + bucketSize);
+			int from = (int)bucketStart[b];
+			int to = (int)bucketStart[b + 1];
+			int[] next = new int[last - first]; // Degrees, then the next free position of each row
+			for (int i = from; i < to; i++) {
+				next[entrySources[i] - first]++;
+			}
+			int position = from;
+			for (int u = first; u < last; u++) {
+				offsets[u] = position;
+				position += next[u - first];
+				next[u - first] = offsets[u];
+			}
+			for (int i = from; i < to; i++) {
+				int row = next[entrySources[i] - first]++;
+				targets[row] = entryTargets[i];
+				if (rowWeights != null) {
+					rowWeights[row] = entryWeights[i];
+				}
+			}
+		});
+		offsets[n] = (int)total;
+
+		Rows rows = new Rows();
+		if (deduplicate) {
+			// Sort the rows by (target, weight) so that copies of an edge are adjacent
+			IntStream.range(0, n).parallel().forEach(u -> sortRow(targets, rowWeights, offsets[u], offsets[u + 1]));
+			compact(rows, offsets, targets, rowWeights);
+		} else {
+			rows.offsets = offsets;
+			rows.targets = targets;
+			rows.weights = rowWeights;
+		}
+		return rows;
+	}
+
+	// Drop repeated targets from the sorted rows; the first, lightest copy is kept
+	private void compact(Rows rows, int[] offsets, int[] targets, double[] weights) {
+		int n = vertices.size();
+		int[] degree = new int[n];
+		IntStream.range(0, n).parallel().forEach(u -> {
+			int count = 0;
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				if (i == offsets[u] || targets[i] != targets[i - 1]) {
+					count++;
+				}
+			}
+			degree[u] = count;
+		});
+
+		rows.offsets = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			rows.offsets[u + 1] = rows.offsets[u] + degree[u];
+		}
+		rows.targets = new int[rows.offsets[n]];
+		rows.weights = weights == null ? null : new double[rows.offsets[n]];
+		IntStream.range(0, n).parallel().forEach(u -> {
+			int j = rows.offsets[u];
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				if (i == offsets[u] || targets[i] != targets[i - 1]) {
+					rows.targets[j] = targets[i];
+					if (weights != null) {
+						rows.weights[j] = weights[i];
+					}
+					j++;
+				}
+			}
+		});
+	}
+
+	// Sort targets[from, to) ascending, ties by weight, moving the weights along
+	private static void sortRow(int[] targets, double[] weights, int from, int to) {
+		if (weights == null) {
+			Arrays.sort(targets, from, to);
+			return;
+		}
+		while (to - from > INSERTION_SORT_THRESHOLD) {
+			// Partition around the median of three
+			int middle = (from + to) >>> 1;
+			int pivot = medianOfThree(targets, weights, from, middle, to - 1);
+			int pivotTarget = targets[pivot];
+			double pivotWeight = weights[pivot];
+			int i = from;
+			int j = to - 1;
+			while (i <= j) {
+				while (less(targets[i], weights[i], pivotTarget, pivotWeight)) {
+					i++;
+				}
+				while (less(pivotTarget, pivotWeight, targets[j], weights[j])) {
+					j--;
+				}
+				if (i <= j) {
+					swap(targets, weights, i++, j--);
+				}
+			}
+			// Recurse into the smaller part, loop on the larger one
+			if (j - from < to - i) {
+				sortRow(targets, weights, from, j + 1);
+				from = i;
+			} else {
+				sortRow(targets, weights, i, to);
+				to = j + 1;
+			}
+		}
+		for (int i = from + 1; i < to; i++) {
+			int target = targets[i];
+			double weight = weights[i];
+			int j = i - 1;
+			while (j >= from && less(target, weight, targets[j], weights[j])) {
+				targets[j + 1] = targets[j];
+				weights[j + 1] = weights[j];
+				j--;
+			}
+			targets[j + 1] = target;
+			weights[j + 1] = weight;
+		}
+	}
+
+	private static boolean less(int targetA, double weightA, int targetB, double weightB) {
+		return targetA < targetB || (targetA == targetB && weightA < weightB);
+	}
+
+	private static int medianOfThree(int[] targets, double[] weights, int a, int b, int c) {
+		if (less(targets[a], weights[a], targets[b], weights[b])) {
+			if (less(targets[b], weights[b], targets[c], weights[c])) {
+				return b;
+			}
+			return less(targets[a], weights[a], targets[c], weights[c]) ? c : a;
+		}
+		if (less(targets[a], weights[a], targets[c], weights[c])) {
+			return a;
+		}
+		return less(targets[b], weights[b], targets[c], weights[c]) ? c : b;
+	}
+
+	private static void swap(int[] targets, double[] weights, int i, int j) {
+		int target = targets[i];
+		targets[i] = targets[j];
+		targets[j] = target;
+		double weight = weights[i];
+		weights[i] = weights[j];
+		weights[j] = weight;
+	}
+
+	// Split m edges into enough chunks to keep every core busy
+	private static int chunks(int m) {
+		return Math.max(1, Math.min(m / 4096, 4 * Runtime.getRuntime().availableProcessors()));
+	}
+
+	private static int chunkStart(int c, int chunks, int m) {
+		return (int)((long)m * c / chunks);
+	}
+
+	private void ensureWeights() {
+		if (weights == null) {
+			weights = new double[sources.length];
+			Arrays.fill(weights, 0, numberOfEdges, 1);
+		}
+	}
+
+	private void ensureCapacity(long capacity) {
+		if (capacity > sources.length) {
+			if (capacity > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("Too many edges: " + capacity);
+			}
+			int newCapacity = (int)Math.min(Math.max(capacity, 2L * sources.length), Integer.MAX_VALUE - 8);
+			sources = Arrays.copyOf(sources, newCapacity);
+			destinations = Arrays.copyOf(destinations, newCapacity);
+			if (weights != null) {
+				weights = Arrays.copyOf(weights, newCapacity);
+			}
+		}
+	}
+}
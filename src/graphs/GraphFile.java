@@ -0,0 +1,352 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * A compact binary file format for graphs, written by write() and opened by map() as a
+ * MappedGraph that reads the file in place. All numbers are little-endian, and every section
+ * starts at a multiple of 8 bytes.
+ *
+ *   header         HEADER_BYTES: magic, format version, flags (directed, weighted, compressed),
+ *                  vertex kind, vertex count, adjacency entries, and the positions of the sections
+ *   vertex table   INTS: n ints; LONGS: n longs; STRINGS: n + 1 byte offsets and the UTF-8 bytes;
+ *                  absent for INDICES, where vertex i is the Integer i
+ *   vertex hash    open addressing table of index + 1 (0 = empty), for getIndex; absent for INDICES
+ *   out rows       the edges out of each vertex in CSR form (see below)
+ *   in rows        the edges into each vertex, for directed graphs only
+ *
+ * A rows section starts with the positions of its arrays: n + 1 long offsets into the entries,
+ * then either the int targets or, when compressed, n + 1 long byte offsets and the encoded
+ * targets, then the double weights of weighted graphs. Compressed rows are sorted by target
+ * and stored as varints: the first target as the zigzag of its difference from the row's
+ * vertex, then the gaps between consecutive targets.
+ * */
+public final class GraphFile {
+	static final int MAGIC = 0x46524147; // "GARF" read as little-endian bytes
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_BYTES = 128;
+
+	static final int DIRECTED = 1;
+	static final int WEIGHTED = 2;
+	static final int COMPRESSED = 4;
+
+	static final int INDICES = 0;
+	static final int INTS = 1;
+	static final int LONGS = 2;
+	static final int STRINGS = 3;
+
+	private GraphFile() {
+	}
+
+	// Write graph to file with uncompressed rows
+	public static void write(UnweightedGraph<?> graph, File file) throws IOException {
+		write(graph, file, false);
+	}
+
+	// Write graph to file; compressed rows are smaller but slower to read at random positions.
+	// Vertices must all be Integers, Longs or Strings.
+	public static void write(UnweightedGraph<?> graph, File file, boolean compress) throws IOException {
+		int n = graph.getSize();
+		int kind = vertexKind(graph);
+		boolean isWeighted = graph instanceof WeightedGraph;
+		long entries = 0;
+		for (int u = 0; u < n; u++) {
+			entries += graph.getDegree(u);
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+			Output out = new Output(channel);
+			out.skip(HEADER_BYTES);
+			long vertexTable = kind == INDICES ? 0 : writeVertexTable(out, graph, kind);
+			long hashCapacity = kind == INDICES ? 0 : Long.highestOneBit(Math.max(2L * n - 1, 1)) << 1;
+			long vertexHash = kind == INDICES ? 0 : writeVertexHash(out, graph, (int)hashCapacity);
+			long outRows = writeRows(out, graph, compress);
+			long inRows = graph.isDirected ? writeRows(out, graph.getIncomingGraph(), compress) : 0;
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(FORMAT_VERSION);
+			header.putInt((graph.isDirected ? DIRECTED : 0) | (isWeighted ? WEIGHTED : 0) | (compress ? COMPRESSED : 0));
+			header.putInt(kind);
+			header.putLong(n).putLong(entries);
+			header.putLong(vertexTable).putLong(vertexHash).putLong(hashCapacity);
+			header.putLong(outRows).putLong(inRows);
+			header.clear();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		}
+	}
+
+	// Open file as a read-only graph backed by the file itself
+	public static <V> MappedGraph<V> map(File file) throws IOException {
+		return new MappedGraph<>(file);
+	}
+
+	private static int vertexKind(UnweightedGraph<?> graph) {
+		int n = graph.getSize();
+		boolean isIndices = true;
+		for (int i = 0; i < n && isIndices; i++) {
+			isIndices = Integer.valueOf(i).equals(graph.getVertex(i));
+		}
+		if (isIndices) {
+			return INDICES;
+		}
+		Class<?> type = graph.getVertex(0).getClass();
+		for (int i = 0; i < n; i++) {
+			if (graph.getVertex(i).getClass() != type) {
+				throw new IllegalArgumentException("Vertices of different types cannot be stored");
+			}
+		}
+		if (type == Integer.class) {
+			return INTS;
+		} else if (type == Long.class) {
+			return LONGS;
+		} else if (type == String.class) {
+			return STRINGS;
+		}
+		throw new IllegalArgumentException("Cannot store vertices of type " + type.getName());
+	}
+
+	private static long writeVertexTable(Output out, UnweightedGraph<?> graph, int kind) throws IOException {
+		long position = out.position();
+		int n = graph.getSize();
+		if (kind == INTS) {
+			for (int i = 0; i < n; i++) {
+				out.putInt((Integer)graph.getVertex(i));
+			}
+		} else if (kind == LONGS) {
+			for (int i = 0; i < n; i++) {
+				out.putLong((Long)graph.getVertex(i));
+			}
+		} else {
+			long offset = 0;
+			out.putLong(0);
+			for (int i = 0; i < n; i++) {
+				offset += ((String)graph.getVertex(i)).getBytes(StandardCharsets.UTF_8).length;
+				out.putLong(offset);
+			}
+			for (int i = 0; i < n; i++) {
+				for (byte b : ((String)graph.getVertex(i)).getBytes(StandardCharsets.UTF_8)) {
+					out.putByte(b);
+				}
+			}
+		}
+		out.align();
+		return position;
+	}
+
+	private static long writeVertexHash(Output out, UnweightedGraph<?> graph, int capacity) throws IOException {
+		int[] slots = new int[capacity];
+		for (int i = 0; i < graph.getSize(); i++) {
+			int slot = hash(graph.getVertex(i)) & (capacity - 1);
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			slots[slot] = i + 1;
+		}
+		long position = out.position();
+		for (int slot : slots) {
+			out.putInt(slot);
+		}
+		out.align();
+		return position;
+	}
+
+	// Write the rows of graph, return the position of the section
+	private static long writeRows(Output out, UnweightedGraph<?> graph, boolean compress) throws IOException {
+		int n = graph.getSize();
+		WeightedGraph<?> weighted = graph instanceof WeightedGraph ? (WeightedGraph<?>)graph : null;
+		long position = out.position();
+		out.skip(4 * 8); // The positions of the arrays, filled in below
+		long offsets = out.position();
+		long entries = 0;
+		out.putLong(0);
+		for (int u = 0; u < n; u++) {
+			entries += graph.getDegree(u);
+			out.putLong(entries);
+		}
+
+		long byteOffsets = 0;
+		long targets = out.position();
+		int[][] sortedRows = null; // The order of each row's entries when compressed
+		if (!compress) {
+			for (int u = 0; u < n; u++) {
+				for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+					out.putInt(graph.getNeighbor(u, i));
+				}
+			}
+		} else {
+			// The byte offsets come first but are only known after encoding, so encode twice
+			sortedRows = new int[n][];
+			long length = 0;
+			for (int u = 0; u < n; u++) {
+				sortedRows[u] = sortRow(graph, u);
+				out.putLong(length);
+				length += encodedLength(graph, u, sortedRows[u]);
+			}
+			out.putLong(length);
+			targets = out.position();
+			for (int u = 0; u < n; u++) {
+				int previous = u;
+				for (int k = 0; k < sortedRows[u].length; k++) {
+					int v = graph.getNeighbor(u, sortedRows[u][k]);
+					out.putVarint(k == 0 ? zigzag(v - u) : v - previous);
+					previous = v;
+				}
+			}
+			byteOffsets = targets - 8L * (n + 1);
+		}
+		out.align();
+
+		long weights = 0;
+		if (weighted != null) {
+			weights = out.position();
+			for (int u = 0; u < n; u++) {
+				for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+					out.putDouble(weighted.getNeighborWeight(u, compress ? sortedRows[u][i] : i));
+				}
+			}
+		}
+		out.putLongAt(position, offsets);
+		out.putLongAt(position + 8, byteOffsets);
+		out.putLongAt(position + 16, targets);
+		out.putLongAt(position + 24, weights);
+		return position;
+	}
+
+	// Return the positions 0 .. degree - 1 of the row of u ordered by target
+	private static int[] sortRow(UnweightedGraph<?> graph, int u) {
+		int degree = graph.getDegree(u);
+		long[] keys = new long[degree];
+		for (int i = 0; i < degree; i++) {
+			keys[i] = (long)graph.getNeighbor(u, i) << 32 | i;
+		}
+		Arrays.sort(keys);
+		int[] order = new int[degree];
+		for (int i = 0; i < degree; i++) {
+			order[i] = (int)keys[i];
+		}
+		return order;
+	}
+
+	private static long encodedLength(UnweightedGraph<?> graph, int u, int[] order) {
+		long length = 0;
+		int previous = u;
+		for (int k = 0; k < order.length; k++) {
+			int v = graph.getNeighbor(u, order[k]);
+			length += varintLength(k == 0 ? zigzag(v - u) : v - previous);
+			previous = v;
+		}
+		return length;
+	}
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int varintLength(int value) {
+		int length = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+
+	// The hash of a vertex in the vertex hash, the same for the writer and MappedGraph
+	static int hash(Object vertex) {
+		int h = vertex.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	// Buffered writes to a channel that track the position in the file
+	private static final class Output {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		private long flushed; // Bytes written to the channel so far
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		long position() {
+			return flushed + buffer.position();
+		}
+
+		void putByte(byte value) throws IOException {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		void putInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			ensure(8);
+			buffer.putLong(value);
+		}
+
+		void putDouble(double value) throws IOException {
+			ensure(8);
+			buffer.putDouble(value);
+		}
+
+		void putVarint(int value) throws IOException {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				buffer.put((byte)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte)value);
+		}
+
+		// Write a long at an earlier position
+		void putLongAt(long position, long value) throws IOException {
+			flush();
+			ByteBuffer bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, value);
+			while (bytes.hasRemaining()) {
+				channel.write(bytes, position + bytes.position());
+			}
+		}
+
+		void skip(int bytes) throws IOException {
+			for (int i = 0; i < bytes; i++) {
+				putByte((byte)0);
+			}
+		}
+
+		// Pad with zeros to a multiple of 8 bytes
+		void align() throws IOException {
+			skip((int)(-position() & 7));
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				flushed += channel.write(buffer, flushed);
+			}
+			buffer.clear();
+		}
+	}
+}
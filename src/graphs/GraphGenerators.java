@@ -0,0 +1,447 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Generators of synthetic graphs for benchmarks. Every generator fills a GraphBuilder
+// with integer vertices 0 .. n - 1 and weights drawn uniformly from 1 .. 100, or with
+// another WeightDistribution (null for unweighted edges).
+//
+// The edges are generated in parallel in blocks of about BLOCK_EDGES edges, each block with
+// its own random generator seeded from seed and the block number, so the same seed gives the
+// same graph on any number of threads. The EdgeSink versions pass the blocks in order to a
+// sink instead of a builder, so graphs larger than a GraphBuilder holds can be streamed.
+public class GraphGenerators {
+	private static final int BLOCK_EDGES = 1 << 16;
+
+	private GraphGenerators() {
+	}
+
+	// Erdos-Renyi G(n, m): m edges with endpoints chosen uniformly at random
+	public static GraphBuilder<Integer> erdosRenyi(int n, int m, long seed) {
+		return erdosRenyi(n, m, WeightDistribution.DEFAULT, seed);
+	}
+
+	public static GraphBuilder<Integer> erdosRenyi(int n, int m, WeightDistribution weights, long seed) {
+		return build(n, m, sink -> erdosRenyi(n, m, weights, seed, sink));
+	}
+
+	public static void erdosRenyi(int n, long m, WeightDistribution weights, long seed, EdgeSink sink) {
+		generate(blocks(m, BLOCK_EDGES), seed, weights != null, (block, random, batch) -> {
+			for (long i = block * BLOCK_EDGES, end = Math.min(m, i + BLOCK_EDGES); i < end; i++) {
+				batch.add(random.nextInt(n), random.nextInt(n), weights, random);
+			}
+		}, sink);
+	}
+
+	// R-MAT power-law graph with 2^scale vertices and edgeFactor * 2^scale edges. Each edge
+	// picks one quadrant of the adjacency matrix per bit with probabilities a, b, c, 1 - a - b - c.
+	public static GraphBuilder<Integer> rmat(int scale, int edgeFactor, double a, double b, double c, long seed) {
+		return rmat(scale, edgeFactor, a, b, c, WeightDistribution.DEFAULT, seed);
+	}
+
+	public static GraphBuilder<Integer> rmat(int scale, int edgeFactor, double a, double b, double c,
+			WeightDistribution weights, long seed) {
+		double[][] initiator = {{a, b}, {c, 1 - a - b - c}};
+		return build(1 << scale, (long)edgeFactor << scale, sink -> kronecker(initiator, scale, (long)edgeFactor << scale, weights, seed, sink));
+	}
+
+	// R-MAT with the Graph500 parameters a = 0.57, b = c = 0.19
+	public static GraphBuilder<Integer> rmat(int scale, int edgeFactor, long seed) {
+		return rmat(scale, edgeFactor, 0.57, 0.19, 0.19, seed);
+	}
+
+	// Stochastic Kronecker graph with k^levels vertices, for a k x k initiator matrix of
+	// probabilities (scaled to sum to 1). Each of the m edges picks a cell of the initiator per
+	// level, which fixes the next base-k digit of its source (the row) and destination (the
+	// column). R-MAT is the 2 x 2 case.
+	public static GraphBuilder<Integer> kronecker(double[][] initiator, int levels, int m, WeightDistribution weights, long seed) {
+		return build(kroneckerSize(initiator, levels), m, sink -> kronecker(initiator, levels, m, weights, seed, sink));
+	}
+
+	public static void kronecker(double[][] initiator, int levels, long m, WeightDistribution weights, long seed, EdgeSink sink) {
+		kroneckerSize(initiator, levels);
+		int k = initiator.length;
+		double[] cumulative = new double[k * k]; // cumulative[cell] for cell = row * k + column
+		double sum = 0;
+		for (int cell = 0; cell < k * k; cell++) {
+			sum += initiator[cell / k][cell % k];
+			cumulative[cell] = sum;
+		}
+		for (int cell = 0; cell < k * k; cell++) {
+			cumulative[cell] /= sum;
+		}
+		generate(blocks(m, BLOCK_EDGES), seed, weights != null, (block, random, batch) -> {
+			for (long i = block * BLOCK_EDGES, end = Math.min(m, i + BLOCK_EDGES); i < end; i++) {
+				int u = 0;
+				int v = 0;
+				for (int level = 0; level < levels; level++) {
+					double p = random.nextDouble();
+					int cell = 0;
+					while (cell < k * k - 1 && p >= cumulative[cell]) {
+						cell++;
+					}
+					u = u * k + cell / k;
+					v = v * k + cell % k;
+				}
+				batch.add(u, v, weights, random);
+			}
+		}, sink);
+	}
+
+	private static int kroneckerSize(double[][] initiator, int levels) {
+		int k = initiator.length;
+		for (double[] row : initiator) {
+			if (row.length != k) {
+				throw new IllegalArgumentException("The initiator must be a square matrix");
+			}
+		}
+		double size = Math.pow(k, levels);
+		if (k < 2 || size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Cannot make " + k + "^" + levels + " vertices");
+		}
+		return (int)size;
+	}
+
+	// Barabasi-Albert preferential attachment: vertex 1, 2, ..., n - 1 in turn adds edgesPerVertex
+	// edges to earlier vertices, each chosen with probability proportional to its degree (vertex 1
+	// only has vertex 0 to choose). Repeated edges are kept.
+	public static GraphBuilder<Integer> barabasiAlbert(int n, int edgesPerVertex, long seed) {
+		return barabasiAlbert(n, edgesPerVertex, WeightDistribution.DEFAULT, seed);
+	}
+
+	public static GraphBuilder<Integer> barabasiAlbert(int n, int edgesPerVertex, WeightDistribution weights, long seed) {
+		return build(n, (long)Math.max(n - 1, 0) * edgesPerVertex, sink -> barabasiAlbert(n, edgesPerVertex, weights, seed, sink));
+	}
+
+	// Picking a uniformly random endpoint of the earlier edges picks a vertex by degree. Edge i
+	// has endpoints 2i (its source, known) and 2i + 1 (its destination), and picks the endpoint
+	// at a random earlier position given by a hash of i; landing on a destination repeats the
+	// choice for that earlier edge. So every edge is resolved on its own, in a few steps on average.
+	public static void barabasiAlbert(int n, int edgesPerVertex, WeightDistribution weights, long seed, EdgeSink sink) {
+		long m = (long)Math.max(n - 1, 0) * edgesPerVertex;
+		long hashSeed = mix(seed);
+		generate(blocks(m, BLOCK_EDGES), seed, weights != null, (block, random, batch) -> {
+			for (long i = block * BLOCK_EDGES, end = Math.min(m, i + BLOCK_EDGES); i < end; i++) {
+				int source = (int)(1 + i / edgesPerVertex);
+				long edge = i;
+				int destination = 0;
+				while (true) {
+					// The endpoints of the edges of vertices before the source of edge
+					long earlier = 2 * (edge / edgesPerVertex) * edgesPerVertex;
+					if (earlier == 0) {
+						break; // Vertex 1 joins vertex 0
+					}
+					long position = Long.remainderUnsigned(mix(hashSeed + edge * 0x9E3779B97F4A7C15L), earlier);
+					if ((position & 1) == 0) {
+						destination = (int)(1 + position / 2 / edgesPerVertex);
+						break;
+					}
+					edge = position / 2;
+				}
+				batch.add(source, destination, weights, random);
+			}
+		}, sink);
+	}
+
+	// Random geometric graph: n points placed uniformly in the unit square, joined when at most
+	// radius apart. Weights are the distances between the points.
+	public static GraphBuilder<Integer> randomGeometric(int n, double radius, long seed) {
+		double expected = Math.PI * radius * radius * n * (n - 1.0) / 2;
+		return build(n, (long)Math.min(expected, Integer.MAX_VALUE), sink -> randomGeometric(n, radius, seed, sink));
+	}
+
+	// The points are sorted into a grid of cells at least radius wide, so only points in
+	// neighboring cells are compared. A block is a row of cells.
+	public static void randomGeometric(int n, double radius, long seed, EdgeSink sink) {
+		if (!(radius > 0)) {
+			throw new IllegalArgumentException("Radius must be positive: " + radius);
+		}
+		double[] x = new double[n];
+		double[] y = new double[n];
+		long pointSeed = mix(seed);
+		IntStream.range(0, (int)blocks(n, BLOCK_EDGES)).parallel().forEach(block -> {
+			SplittableRandom random = blockRandom(pointSeed, block);
+			for (int i = block * BLOCK_EDGES, end = Math.min(n, i + BLOCK_EDGES); i < end; i++) {
+				x[i] = random.nextDouble();
+				y[i] = random.nextDouble();
+			}
+		});
+
+		int side = (int)Math.max(1, Math.min(1 / radius, Math.sqrt(n))); // Cells per row and column
+		int[] cellStart = new int[side * side + 1];
+		int[] cellOf = new int[n];
+		for (int i = 0; i < n; i++) {
+			cellOf[i] = Math.min((int)(y[i] * side), side - 1) * side + Math.min((int)(x[i] * side), side - 1);
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int cell = 0; cell < side * side; cell++) {
+			cellStart[cell + 1] += cellStart[cell];
+		}
+		int[] points = new int[n]; // The points of cell c are points[cellStart[c] .. cellStart[c + 1] - 1]
+		int[] next = Arrays.copyOf(cellStart, side * side);
+		for (int i = 0; i < n; i++) {
+			points[next[cellOf[i]]++] = i;
+		}
+
+		// Compare each cell with itself and the neighbors to the right and in the next row
+		int[][] neighborCells = {{1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+		double squaredRadius = radius * radius;
+		generate(side, seed, true, (row, random, batch) -> {
+			for (int column = 0; column < side; column++) {
+				int cell = (int)row * side + column;
+				for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+					int p = points[i];
+					for (int j = i + 1; j < cellStart[cell + 1]; j++) {
+						addIfClose(batch, p, points[j], x, y, squaredRadius);
+					}
+					for (int[] offset : neighborCells) {
+						int c = column + offset[0];
+						int r = (int)row + offset[1];
+						if (c >= 0 && c < side && r < side) {
+							for (int j = cellStart[r * side + c]; j < cellStart[r * side + c + 1]; j++) {
+								addIfClose(batch, p, points[j], x, y, squaredRadius);
+							}
+						}
+					}
+				}
+			}
+		}, sink);
+	}
+
+	private static void addIfClose(Batch batch, int p, int q, double[] x, double[] y, double squaredRadius) {
+		double dx = x[p] - x[q];
+		double dy = y[p] - y[q];
+		double squaredDistance = dx * dx + dy * dy;
+		if (squaredDistance <= squaredRadius) {
+			batch.add(p, q, Math.sqrt(squaredDistance));
+		}
+	}
+
+	// rows x columns grid where every vertex is joined to its right and lower neighbor
+	public static GraphBuilder<Integer> grid(int rows, int columns, long seed) {
+		return grid(rows, columns, WeightDistribution.DEFAULT, seed);
+	}
+
+	public static GraphBuilder<Integer> grid(int rows, int columns, WeightDistribution weights, long seed) {
+		return build(rows * columns, 2L * rows * columns, sink -> grid(rows, columns, weights, seed, sink));
+	}
+
+	public static void grid(int rows, int columns, WeightDistribution weights, long seed, EdgeSink sink) {
+		int rowsPerBlock = Math.max(1, BLOCK_EDGES / (2 * Math.max(columns, 1)));
+		generate(blocks(rows, rowsPerBlock), seed, weights != null, (block, random, batch) -> {
+			for (int r = (int)block * rowsPerBlock, end = Math.min(rows, r + rowsPerBlock); r < end; r++) {
+				for (int c = 0; c < columns; c++) {
+					int u = r * columns + c;
+					if (c + 1 < columns) {
+						batch.add(u, u + 1, weights, random);
+					}
+					if (r + 1 < rows) {
+						batch.add(u, u + columns, weights, random);
+					}
+				}
+			}
+		}, sink);
+	}
+
+	// Path 0 - 1 - ... - (n - 1)
+	public static GraphBuilder<Integer> path(int n, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		GraphBuilder<Integer> builder = new GraphBuilder<Integer>(n).expectEdges(n);
+		for (int i = 0; i + 1 < n; i++) {
+			builder.addEdge(i, i + 1, WeightDistribution.DEFAULT.next(random));
+		}
+		return builder;
+	}
+
+	// Random simple graph where every vertex has between minDegree and maxDegree neighbors.
+	// Each vertex draws its degree uniformly from that range and the edge ends are paired at
+	// random (the configuration model). Pairs that would make a self-loop or a repeated edge are
+	// paired again a few times; ends still unpaired then are dropped, so a few vertices may end up
+	// below minDegree, as does one vertex if the degrees add up to an odd number.
+	public static GraphBuilder<Integer> boundedDegree(int n, int minDegree, int maxDegree, long seed) {
+		return boundedDegree(n, minDegree, maxDegree, WeightDistribution.DEFAULT, seed);
+	}
+
+	public static GraphBuilder<Integer> boundedDegree(int n, int minDegree, int maxDegree, WeightDistribution weights, long seed) {
+		return build(n, (long)n * maxDegree / 2, sink -> boundedDegree(n, minDegree, maxDegree, weights, seed, sink));
+	}
+
+	// The pairing is sequential; only the degrees and weights are drawn in parallel
+	public static void boundedDegree(int n, int minDegree, int maxDegree, WeightDistribution weights, long seed, EdgeSink sink) {
+		if (minDegree < 0 || minDegree > maxDegree || maxDegree >= Math.max(n, 1)) {
+			throw new IllegalArgumentException("Degrees must satisfy 0 <= min <= max < n: " + minDegree + ", " + maxDegree);
+		}
+		int[] degree = new int[n];
+		long degreeSeed = mix(seed);
+		IntStream.range(0, (int)blocks(n, BLOCK_EDGES)).parallel().forEach(block -> {
+			SplittableRandom random = blockRandom(degreeSeed, block);
+			for (int v = block * BLOCK_EDGES, end = Math.min(n, v + BLOCK_EDGES); v < end; v++) {
+				degree[v] = minDegree + random.nextInt(maxDegree - minDegree + 1);
+			}
+		});
+		long total = 0;
+		for (int d : degree) {
+			total += d;
+		}
+		if (total > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many edges: " + total / 2);
+		}
+		int[] ends = new int[(int)total]; // Vertex v appears degree[v] times
+		int size = 0;
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < degree[v]; i++) {
+				ends[size++] = v;
+			}
+		}
+		size &= ~1; // Drop the last end when the total is odd
+
+		SplittableRandom random = new SplittableRandom(seed);
+		LongIntHashMap edges = new LongIntHashMap((int)(total / 2));
+		int[] paired = new int[size]; // Accepted pairs are moved to the front
+		int accepted = 0;
+		for (int round = 0; round < 10 && size > 0; round++) {
+			for (int i = size - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int temp = ends[i];
+				ends[i] = ends[j];
+				ends[j] = temp;
+			}
+			int left = 0; // Ends of rejected pairs, paired again in the next round
+			for (int i = 0; i + 1 < size; i += 2) {
+				int u = Math.min(ends[i], ends[i + 1]);
+				int v = Math.max(ends[i], ends[i + 1]);
+				if (u != v && edges.put((long)u << 32 | v, 0) < 0) {
+					paired[accepted++] = u;
+					paired[accepted++] = v;
+				} else {
+					ends[left++] = ends[i];
+					ends[left++] = ends[i + 1];
+				}
+			}
+			if (left == size) {
+				break;
+			}
+			size = left;
+		}
+
+		int pairs = accepted / 2;
+		generate(blocks(pairs, BLOCK_EDGES), seed, weights != null, (block, blockRandom, batch) -> {
+			for (int i = (int)block * BLOCK_EDGES, end = Math.min(pairs, i + BLOCK_EDGES); i < end; i++) {
+				batch.add(paired[2 * i], paired[2 * i + 1], weights, blockRandom);
+			}
+		}, sink);
+	}
+
+	// Generate into a new builder with vertices 0 .. n - 1, expecting about m edges
+	private static GraphBuilder<Integer> build(int n, long m, Consumer<EdgeSink> generator) {
+		GraphBuilder<Integer> builder = new GraphBuilder<Integer>(n).expectEdges((int)Math.min(m, Integer.MAX_VALUE - 8));
+		generator.accept((sources, destinations, weights, count) -> builder.addEdges(sources, destinations, weights, 0, count));
+		return builder;
+	}
+
+	// Fills batch with the edges of one block, drawing from random
+	@FunctionalInterface
+	private interface BlockGenerator {
+		void generate(long block, SplittableRandom random, Batch batch);
+	}
+
+	// Run generator on blocks 0 .. blocks - 1 in parallel, a few per thread at a time, and pass
+	// the batches to sink in block order
+	private static void generate(long blocks, long seed, boolean isWeighted, BlockGenerator generator, EdgeSink sink) {
+		int wave = (int)Math.min(blocks, 4L * ForkJoinPool.getCommonPoolParallelism());
+		Batch[] batches = new Batch[wave];
+		for (int i = 0; i < wave; i++) {
+			batches[i] = new Batch(isWeighted);
+		}
+		for (long first = 0; first < blocks; first += wave) {
+			long base = first;
+			int count = (int)Math.min(wave, blocks - first);
+			IntStream.range(0, count).parallel().forEach(i -> {
+				batches[i].size = 0;
+				generator.generate(base + i, blockRandom(seed, base + i), batches[i]);
+			});
+			for (int i = 0; i < count; i++) {
+				sink.accept(batches[i].sources, batches[i].destinations, batches[i].weights, batches[i].size);
+			}
+		}
+	}
+
+	// The edges of one block, in arrays that grow as needed
+	private static final class Batch {
+		int[] sources = new int[BLOCK_EDGES];
+		int[] destinations = new int[BLOCK_EDGES];
+		double[] weights;
+		int size;
+
+		Batch(boolean isWeighted) {
+			weights = isWeighted ? new double[BLOCK_EDGES] : null;
+		}
+
+		void add(int u, int v, WeightDistribution distribution, SplittableRandom random) {
+			add(u, v, distribution == null ? 1 : distribution.next(random));
+		}
+
+		void add(int u, int v, double weight) {
+			if (size == sources.length) {
+				sources = Arrays.copyOf(sources, 2 * size);
+				destinations = Arrays.copyOf(destinations, 2 * size);
+				if (weights != null) {
+					weights = Arrays.copyOf(weights, 2 * size);
+				}
+			}
+			sources[size] = u;
+			destinations[size] = v;
+			if (weights != null) {
+				weights[size] = weight;
+			}
+			size++;
+		}
+	}
+
+	private static long blocks(long items, int itemsPerBlock) {
+		return (items + itemsPerBlock - 1) / itemsPerBlock;
+	}
+
+	private static SplittableRandom blockRandom(long seed, long block) {
+		return new SplittableRandom(mix(seed + (block + 1) * 0x9E3779B97F4A7C15L));
+	}
+
+	// The SplitMix64 finalizer: a well-mixed 64-bit hash of z
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	// Report how fast each generator streams edges to a sink that only counts them
+	// Usage: GraphGenerators [scale]   (graphs of about 2^scale vertices, default 20)
+	public static void main(String[] args) {
+		int scale = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int n = 1 << scale;
+		int side = (int)Math.sqrt(n);
+		long[] edges = new long[1];
+		EdgeSink counter = (sources, destinations, weights, count) -> edges[0] += count;
+		String[] names = {"erdosRenyi", "rmat", "barabasiAlbert", "randomGeometric", "grid", "boundedDegree"};
+		Runnable[] generators = {
+			() -> erdosRenyi(n, 16L * n, WeightDistribution.DEFAULT, 1, counter),
+			() -> kronecker(new double[][] {{0.57, 0.19}, {0.19, 0.05}}, scale, 16L * n, WeightDistribution.DEFAULT, 1, counter),
+			() -> barabasiAlbert(n, 16, WeightDistribution.DEFAULT, 1, counter),
+			() -> randomGeometric(n, Math.sqrt(32.0 / Math.PI / n), 1, counter),
+			() -> grid(side, side, WeightDistribution.DEFAULT, 1, counter),
+			() -> boundedDegree(n, 4, 6, WeightDistribution.DEFAULT, 1, counter),
+		};
+		System.out.printf("%-16s %12s %10s %14s%n", "generator", "edges", "time (s)", "M edges/s");
+		for (int i = 0; i < generators.length; i++) {
+			generators[i].run(); // Warm up
+			edges[0] = 0;
+			long start = System.nanoTime();
+			generators[i].run();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%-16s %12d %10.2f %14.1f%n", names[i], edges[0], seconds, edges[0] / seconds / 1e6);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package graphs;
+
+// Receives the changes made to a graph, after they are made. An edge of an undirected graph
+// is reported once, as given by the caller; it also connects v to u. Edges of unweighted
+// graphs weigh 1, and a missing edge has weight Double.POSITIVE_INFINITY.
+public interface GraphListener {
+	// Called after the edge (u, v) is added
+	public default void edgeAdded(int u, int v, double weight) {
+	}
+	
+	// Called after the edge (u, v) is removed
+	public default void edgeRemoved(int u, int v, double weight) {
+	}
+	
+	// Called after the weight of the edge (u, v) is changed
+	public default void weightChanged(int u, int v, double oldWeight, double newWeight) {
+	}
+	
+	// Called after a vertex is added at index v
+	public default void vertexAdded(int v) {
+	}
+	
+	// Called after vertices are removed or the graph is cleared; other vertex indices may change
+	public default void verticesRemoved() {
+	}
+}
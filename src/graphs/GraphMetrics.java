@@ -0,0 +1,160 @@
+package graphs;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * Opt-in metrics of graph operations: per algorithm, the number of calls, vertices settled,
+ * edges scanned, relaxations (cost or parent improvements), heap operations and bytes
+ * allocated, and a histogram of latencies. Metrics are off until enable() is called. While
+ * they are off an instrumented call only reads one volatile flag; the algorithms count in
+ * local variables and hand the totals over once, when the call returns.
+ *
+ * The metrics can be read here, exported over JMX as one OperationMetricsMXBean per algorithm
+ * (registerMBeans()), or passed call by call to GraphMetricsListeners, for example to log
+ * pathological queries.
+ * */
+public final class GraphMetrics {
+	// The instrumented operations
+	public enum Algorithm {
+		NEIGHBORS, // getNeighbors, counting the neighbors returned as edges scanned
+		BFS,
+		DFS,
+		PARALLEL_BFS,
+		SHORTEST_PATH, // Dijkstra's algorithm from one source
+		PARALLEL_SHORTEST_PATH,
+		POINT_TO_POINT, // The bidirectional search of getShortestPath(source, target)
+		A_STAR,
+		MINIMUM_SPANNING_TREE
+	}
+
+	public static final String DOMAIN = "graphs";
+
+	private static volatile boolean isEnabled;
+	private static final Map<Algorithm, OperationMetrics> METRICS = new EnumMap<>(Algorithm.class);
+	private static final List<GraphMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+	private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	static {
+		for (Algorithm algorithm : Algorithm.values()) {
+			METRICS.put(algorithm, new OperationMetrics(algorithm));
+		}
+	}
+
+	private GraphMetrics() {
+	}
+
+	public static void enable() {
+		isEnabled = true;
+	}
+
+	// Stop recording; what is recorded so far is kept
+	public static void disable() {
+		isEnabled = false;
+	}
+
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	public static OperationMetrics get(Algorithm algorithm) {
+		return METRICS.get(algorithm);
+	}
+
+	// Forget everything recorded so far
+	public static void reset() {
+		for (OperationMetrics metrics : METRICS.values()) {
+			metrics.reset();
+		}
+	}
+
+	public static void addListener(GraphMetricsListener listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(GraphMetricsListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	// Register the metrics of every algorithm with the platform MBean server, named
+	// graphs:type=GraphMetrics,algorithm=<Algorithm>; registering twice does nothing
+	public static synchronized void registerMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (OperationMetrics metrics : METRICS.values()) {
+				ObjectName name = objectName(metrics.getAlgorithm());
+				if (!server.isRegistered(name)) {
+					server.registerMBean(metrics, name);
+				}
+			}
+		} catch (JMException ex) {
+			throw new IllegalStateException("Cannot register the graph metrics", ex);
+		}
+	}
+
+	public static synchronized void unregisterMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (Algorithm algorithm : Algorithm.values()) {
+				ObjectName name = objectName(algorithm);
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+			}
+		} catch (JMException ex) {
+			throw new IllegalStateException("Cannot unregister the graph metrics", ex);
+		}
+	}
+
+	private static ObjectName objectName(Algorithm algorithm) throws JMException {
+		return new ObjectName(DOMAIN + ":type=GraphMetrics,algorithm=" + algorithm);
+	}
+
+	// Print the algorithms that were called
+	public static void print() {
+		for (OperationMetrics metrics : METRICS.values()) {
+			if (metrics.getCalls() > 0) {
+				System.out.println(metrics);
+			}
+		}
+	}
+
+	// Called when an operation begins: return System.nanoTime() if metrics are enabled, else 0
+	static long start() {
+		return isEnabled ? System.nanoTime() : 0;
+	}
+
+	// Return the bytes allocated so far by the current thread if start (from start()) is not 0
+	// and the JVM can tell, else -1
+	static long allocatedBytes(long start) {
+		if (start != 0 && THREADS instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)THREADS;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	// Called when an operation returns, with start and allocatedBefore as returned when it began;
+	// does nothing if metrics were disabled when it began
+	static void record(Algorithm algorithm, long start, long allocatedBefore, long settled, long scanned,
+			long relaxations, long heapOperations) {
+		if (start == 0) {
+			return;
+		}
+		long nanos = System.nanoTime() - start;
+		long allocated = allocatedBefore < 0 ? -1 : Math.max(allocatedBytes(start) - allocatedBefore, 0);
+		METRICS.get(algorithm).record(nanos, settled, scanned, relaxations, heapOperations, allocated);
+		for (GraphMetricsListener listener : LISTENERS) {
+			listener.operationCompleted(algorithm, nanos, settled, scanned, relaxations, heapOperations, allocated);
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package graphs;
+
+// Receives every call recorded by GraphMetrics, on the thread that made the call, right after it
+// returns. Counters the algorithm does not track are 0, and allocatedBytes is -1 if the JVM
+// cannot tell. Listeners run on the hot path and must be fast and thread-safe.
+@FunctionalInterface
+public interface GraphMetricsListener {
+	public void operationCompleted(GraphMetrics.Algorithm algorithm, long nanos, long settledVertices,
+			long edgesScanned, long relaxations, long heapOperations, long allocatedBytes);
+}
@@ -0,0 +1,471 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/*
+ * Reads large graph files into a GraphBuilder without creating an object per edge. Supported
+ * formats are
+ *
+ *   EDGE_LIST  one edge "u v" or "u v weight" per line with vertices numbered from 0, as in SNAP;
+ *              lines starting with # or % are comments
+ *   DIMACS     the 9th DIMACS challenge .gr format: "p sp n m", then "a u v weight" per directed
+ *              arc with vertices numbered from 1; lines starting with c are comments
+ *   METIS      a header "n m [fmt [ncon]]", then one line per vertex listing its neighbors
+ *              (numbered from 1), each followed by its weight if fmt asks for edge weights;
+ *              every undirected edge is listed at both ends and added once
+ *
+ * The file is memory-mapped and cut into chunks of about CHUNK_BYTES that end at line ends.
+ * Chunks are parsed in parallel into primitive arrays, and each wave of chunks is appended to
+ * the builder in file order, so the result does not depend on the number of threads.
+ * */
+public class GraphReader {
+	public enum Format {
+		EDGE_LIST, DIMACS, METIS
+	}
+
+	private static final int CHUNK_BYTES = 1 << 24;
+
+	private final File file;
+	private final Format format;
+	private boolean isDirected;
+	private long edges;
+	private long bytes;
+	private long nanos;
+
+	// Read file in the format its extension suggests (see guessFormat)
+	public GraphReader(File file) {
+		this(file, guessFormat(file));
+	}
+
+	public GraphReader(File file, Format format) {
+		this.file = file;
+		this.format = format;
+		this.isDirected = format == Format.DIMACS;
+	}
+
+	// Return DIMACS for .gr files, METIS for .graph and .metis files, and EDGE_LIST otherwise
+	public static Format guessFormat(File file) {
+		String name = file.getName().toLowerCase();
+		if (name.endsWith(".gr")) {
+			return Format.DIMACS;
+		} else if (name.endsWith(".graph") || name.endsWith(".metis")) {
+			return Format.METIS;
+		}
+		return Format.EDGE_LIST;
+	}
+
+	// Build a directed graph (the default for DIMACS, and false for the other formats)
+	public GraphReader directed(boolean isDirected) {
+		this.isDirected = isDirected;
+		return this;
+	}
+
+	// Return the number of edges read by the last read()
+	public long getNumberOfEdges() {
+		return edges;
+	}
+
+	// Return the size of the file read by the last read()
+	public long getNumberOfBytes() {
+		return bytes;
+	}
+
+	public double getSeconds() {
+		return nanos / 1e9;
+	}
+
+	// Return the throughput of the last read()
+	public double getEdgesPerSecond() {
+		return nanos == 0 ? 0 : edges / getSeconds();
+	}
+
+	// Parse the file into a builder of a graph with vertices 0, 1, ..., n - 1
+	public GraphBuilder<Integer> read() throws IOException {
+		long start = System.nanoTime();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			bytes = channel.size();
+			Header header = format == Format.EDGE_LIST ? new Header() : readHeader(channel);
+			GraphBuilder<Integer> builder = new GraphBuilder<Integer>(header.vertices).directed(isDirected);
+			long[] bounds = chunkBounds(channel, header.dataStart);
+			int chunks = bounds.length - 1;
+			int[] firstVertex = format == Format.METIS ? countVertexLines(channel, bounds) : null;
+
+			// Parse a few chunks per thread at a time to bound the memory held in parsed chunks
+			int wave = 4 * ForkJoinPool.getCommonPoolParallelism();
+			edges = 0;
+			try {
+				for (int from = 0; from < chunks; from += wave) {
+					int first = from;
+					Chunk[] parsed = new Chunk[Math.min(wave, chunks - from)];
+					IntStream.range(0, parsed.length).parallel().forEach(c -> {
+						try {
+							parsed[c] = parse(channel, bounds[first + c], bounds[first + c + 1], header,
+									firstVertex == null ? 0 : firstVertex[first + c]);
+						} catch (IOException ex) {
+							throw new UncheckedIOException(ex);
+						}
+					});
+					for (Chunk chunk : parsed) {
+						if (format == Format.EDGE_LIST) {
+							builder.ensureIntegerVertices(chunk.maxVertex + 1);
+						}
+						builder.addEdges(chunk.sources, chunk.destinations, chunk.hasWeights ? chunk.weights : null, 0, chunk.size);
+						edges += chunk.size;
+					}
+				}
+			} catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+			return builder;
+		} finally {
+			nanos = System.nanoTime() - start;
+		}
+	}
+
+	// What the header of a DIMACS or METIS file says
+	private static final class Header {
+		int vertices;
+		long dataStart; // The position after the header line for METIS files, 0 otherwise
+		boolean hasEdgeWeights;
+		int skippedValues; // Vertex size and weights before the neighbors of a METIS line
+	}
+
+	private Header readHeader(FileChannel channel) throws IOException {
+		Header header = new Header();
+		Cursor cursor = new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(bytes, CHUNK_BYTES)), 0);
+		while (cursor.hasMore()) {
+			int c = cursor.peek();
+			if (format == Format.DIMACS && c == 'p') {
+				cursor.skip();
+				cursor.readWord(); // "sp"
+				header.vertices = (int)cursor.readLong();
+				return header;
+			}
+			if (format == Format.METIS && c != '%') {
+				header.vertices = (int)cursor.readLong();
+				cursor.readLong(); // Edges
+				String fmt = cursor.atLineEnd() ? "0" : Long.toString(cursor.readLong());
+				fmt = "000".substring(Math.min(3, fmt.length())) + fmt;
+				header.hasEdgeWeights = fmt.charAt(2) == '1';
+				int constraints = fmt.charAt(1) == '1' ? (cursor.atLineEnd() ? 1 : (int)cursor.readLong()) : 0;
+				header.skippedValues = (fmt.charAt(0) == '1' ? 1 : 0) + constraints;
+				cursor.nextLine();
+				header.dataStart = cursor.position();
+				return header;
+			}
+			cursor.nextLine();
+		}
+		throw new IOException(file + ": no header in the first " + CHUNK_BYTES + " bytes");
+	}
+
+	// Return the chunk boundaries from start to the end of the file, each at a line start
+	private long[] chunkBounds(FileChannel channel, long start) throws IOException {
+		int chunks = (int)Math.max(1, (bytes - start + CHUNK_BYTES - 1) / CHUNK_BYTES);
+		long[] bounds = new long[chunks + 1];
+		bounds[0] = start;
+		for (int c = 1; c < chunks; c++) {
+			// Move the nominal boundary past the end of the line it falls in
+			long position = Math.max(start + (long)c * CHUNK_BYTES, bounds[c - 1]);
+			MappedByteBuffer buffer = null;
+			long bufferStart = 0;
+			while (position < bytes) {
+				if (buffer == null || position - bufferStart >= buffer.limit()) {
+					bufferStart = position;
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(bytes - position, 1 << 16));
+				}
+				if (buffer.get((int)(position++ - bufferStart)) == '\n') {
+					break;
+				}
+			}
+			bounds[c] = position;
+		}
+		bounds[chunks] = bytes;
+		return bounds;
+	}
+
+	// Return the number of the first vertex line of every chunk of a METIS file
+	private int[] countVertexLines(FileChannel channel, long[] bounds) {
+		int chunks = bounds.length - 1;
+		int[] lines = new int[chunks + 1];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			try {
+				Cursor cursor = new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]), bounds[c]);
+				int count = 0;
+				while (cursor.hasMore()) {
+					if (cursor.peek() != '%') {
+						count++;
+					}
+					cursor.nextLine();
+				}
+				lines[c + 1] = count;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+		for (int c = 0; c < chunks; c++) {
+			lines[c + 1] += lines[c];
+		}
+		return lines;
+	}
+
+	private Chunk parse(FileChannel channel, long from, long to, Header header, int firstVertex) throws IOException {
+		Cursor cursor = new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), from);
+		Chunk chunk = new Chunk((int)Math.min(1 << 20, (to - from) / 8 + 16));
+		int vertex = firstVertex; // The vertex of the current METIS line
+		while (cursor.hasMore()) {
+			int c = cursor.peek();
+			switch (format) {
+				case EDGE_LIST:
+					if (c != '#' && c != '%' && !cursor.atLineEnd()) {
+						int u = checkVertex(cursor, cursor.readLong(), 0, Integer.MAX_VALUE - 1);
+						int v = checkVertex(cursor, cursor.readLong(), 0, Integer.MAX_VALUE - 1);
+						if (cursor.atLineEnd()) {
+							chunk.add(u, v, 1);
+						} else {
+							chunk.add(u, v, cursor.readDouble());
+							chunk.hasWeights = true;
+						}
+					}
+					break;
+				case DIMACS:
+					if (c == 'a') {
+						cursor.skip();
+						int u = checkVertex(cursor, cursor.readLong(), 1, header.vertices) - 1;
+						int v = checkVertex(cursor, cursor.readLong(), 1, header.vertices) - 1;
+						chunk.add(u, v, cursor.readDouble());
+						chunk.hasWeights = true;
+					}
+					break;
+				default: // METIS
+					if (c == '%') {
+						break;
+					}
+					if (vertex >= header.vertices) {
+						if (!cursor.atLineEnd()) {
+							throw new IOException(file + ": more vertex lines than vertices at byte " + cursor.position());
+						}
+						break; // Trailing empty lines
+					}
+					for (int i = 0; i < header.skippedValues; i++) {
+						cursor.readLong();
+					}
+					while (!cursor.atLineEnd()) {
+						int v = checkVertex(cursor, cursor.readLong(), 1, header.vertices) - 1;
+						double weight = header.hasEdgeWeights ? cursor.readDouble() : 1;
+						if (vertex < v) { // Both ends list the edge
+							chunk.add(vertex, v, weight);
+						}
+					}
+					chunk.hasWeights = header.hasEdgeWeights;
+					vertex++;
+			}
+			cursor.nextLine();
+		}
+		return chunk;
+	}
+
+	private int checkVertex(Cursor cursor, long v, long min, long max) throws IOException {
+		if (v < min || v > max) {
+			throw new IOException(file + ": no such vertex " + v + " at byte " + cursor.position());
+		}
+		return (int)v;
+	}
+
+	// The edges parsed from one chunk
+	private static final class Chunk {
+		int[] sources;
+		int[] destinations;
+		double[] weights;
+		int size;
+		int maxVertex = -1;
+		boolean hasWeights;
+
+		Chunk(int capacity) {
+			sources = new int[capacity];
+			destinations = new int[capacity];
+			weights = new double[capacity];
+		}
+
+		void add(int u, int v, double weight) {
+			if (size == sources.length) {
+				int capacity = 2 * size;
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+			}
+			sources[size] = u;
+			destinations[size] = v;
+			weights[size++] = weight;
+			maxVertex = Math.max(maxVertex, Math.max(u, v));
+		}
+	}
+
+	// Reads numbers and words from a mapped part of the file, starting at file position base
+	private final class Cursor {
+		private final MappedByteBuffer buffer;
+		private final long base;
+		private int position;
+
+		Cursor(MappedByteBuffer buffer, long base) {
+			this.buffer = buffer;
+			this.base = base;
+		}
+
+		long position() {
+			return base + position;
+		}
+
+		boolean hasMore() {
+			return position < buffer.limit();
+		}
+
+		int peek() {
+			return buffer.get(position);
+		}
+
+		void skip() {
+			position++;
+		}
+
+		// Skip spaces and return true if the line has no more words
+		boolean atLineEnd() {
+			while (position < buffer.limit()) {
+				byte b = buffer.get(position);
+				if (b != ' ' && b != '\t' && b != '\r') {
+					return b == '\n';
+				}
+				position++;
+			}
+			return true;
+		}
+
+		// Move to the start of the next line
+		void nextLine() {
+			while (position < buffer.limit() && buffer.get(position++) != '\n') {
+			}
+		}
+
+		void readWord() {
+			atLineEnd();
+			while (position < buffer.limit() && buffer.get(position) > ' ') {
+				position++;
+			}
+		}
+
+		long readLong() throws IOException {
+			if (atLineEnd()) {
+				throw malformed();
+			}
+			boolean isNegative = buffer.get(position) == '-';
+			if (isNegative) {
+				position++;
+			}
+			int start = position;
+			long value = 0;
+			while (position < buffer.limit()) {
+				int digit = buffer.get(position) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				value = 10 * value + digit;
+				position++;
+			}
+			if (position == start || position - start > 18 || !isSeparator()) {
+				throw malformed();
+			}
+			return isNegative ? -value : value;
+		}
+
+		// Parse a decimal number; up to 15 significant digits and 22 decimals are converted
+		// exactly without a String, others by Double.parseDouble
+		double readDouble() throws IOException {
+			if (atLineEnd()) {
+				throw malformed();
+			}
+			int start = position;
+			boolean isNegative = buffer.get(position) == '-';
+			if (isNegative || buffer.get(position) == '+') {
+				position++;
+			}
+			long mantissa = 0;
+			int digits = 0; // Significant digits
+			boolean hasDigits = false;
+			int decimals = -1; // Digits after the point, -1 before the point
+			while (position < buffer.limit()) {
+				byte b = buffer.get(position);
+				if (b >= '0' && b <= '9') {
+					mantissa = 10 * mantissa + (b - '0');
+					hasDigits = true;
+					if (mantissa != 0) {
+						digits++;
+					}
+					if (decimals >= 0) {
+						decimals++;
+					}
+				} else if (b == '.' && decimals < 0) {
+					decimals = 0;
+				} else {
+					break;
+				}
+				position++;
+			}
+			if (isSeparator() && digits <= 15 && decimals <= 22 && hasDigits) {
+				double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+				return isNegative ? -value : value;
+			}
+			// Exponents, long mantissas, NaN and the like
+			while (position < buffer.limit() && buffer.get(position) > ' ') {
+				position++;
+			}
+			byte[] token = new byte[position - start];
+			for (int i = 0; i < token.length; i++) {
+				token[i] = buffer.get(start + i);
+			}
+			try {
+				return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+			} catch (NumberFormatException ex) {
+				throw malformed();
+			}
+		}
+
+		private boolean isSeparator() {
+			return position >= buffer.limit() || buffer.get(position) <= ' ';
+		}
+
+		private IOException malformed() {
+			return new IOException(file + ": malformed line at byte " + position());
+		}
+	}
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+		}
+	}
+
+	// Read the file given on the command line and report the throughput
+	// Usage: GraphReader file [EDGE_LIST|DIMACS|METIS]
+	public static void main(String[] args) throws IOException {
+		File file = new File(args[0]);
+		GraphReader reader = new GraphReader(file, args.length > 1 ? Format.valueOf(args[1]) : guessFormat(file));
+		GraphBuilder<Integer> builder = reader.read();
+		long start = System.nanoTime();
+		CsrGraph<Integer> graph = builder.buildCsr();
+		double buildSeconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%s: %d vertices, %d edges, %.1f MB%n", file, graph.getSize(), reader.getNumberOfEdges(), reader.getNumberOfBytes() / 1e6);
+		System.out.printf("parsed in %.2f s: %.1f million edges/s, %.1f MB/s; CSR layout %.2f s%n", reader.getSeconds(),
+				reader.getEdgesPerSecond() / 1e6, reader.getNumberOfBytes() / 1e6 / reader.getSeconds(), buildSeconds);
+	}
+}
@@ -0,0 +1,220 @@
+package graphs;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// An immutable version of a ConcurrentGraph. Snapshots share their unchanged segments with
+// older and newer versions, so taking one is free and queries on it need no locking. Edges
+// added without a weight weigh 1.
+public class GraphSnapshot<V> extends WeightedGraph<V> {
+	final SegmentedVertexTable<V> vertexTable;
+	final SegmentedAdjacency outRows;
+	final SegmentedAdjacency inRows; // Rows of incoming edges for directed graphs, null otherwise
+	private final long version;
+
+	GraphSnapshot(boolean isDirected, SegmentedVertexTable<V> vertexTable, SegmentedAdjacency outRows,
+			SegmentedAdjacency inRows, long version) {
+		this.isDirected = isDirected;
+		this.vertexTable = vertexTable;
+		this.outRows = outRows;
+		this.inRows = inRows;
+		this.version = version;
+		this.vertices = new AbstractList<V>() {
+			@Override
+			public V get(int index) {
+				return getVertex(index);
+			}
+
+			@Override
+			public int size() {
+				return vertexTable.size();
+			}
+		};
+	}
+
+	// Return the version of the graph this snapshot was taken of; every change increments it
+	public long getVersion() {
+		return version;
+	}
+
+	public boolean isDirected() {
+		return isDirected;
+	}
+
+	// Return the snapshot with every edge reversed; an undirected graph is its own transpose
+	public GraphSnapshot<V> getTranspose() {
+		return isDirected ? new GraphSnapshot<>(true, vertexTable, inRows, outRows, version) : this;
+	}
+
+	@Override
+	GraphSnapshot<V> getIncomingGraph() {
+		return getTranspose();
+	}
+
+	@Override
+	public int getSize() {
+		return vertexTable.size();
+	}
+
+	@Override
+	public V getVertex(int index) {
+		if (index < 0 || index >= vertexTable.size()) {
+			throw new IndexOutOfBoundsException("No such index: " + index);
+		}
+		return vertexTable.get(index);
+	}
+
+	@Override
+	public int getIndex(V v) {
+		return vertexTable.indexOf(v);
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int index) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		List<Integer> result = new ArrayList<>(getDegree(index));
+		for (int i = 0, degree = getDegree(index); i < degree; i++) {
+			result.add(outRows.getTarget(index, i));
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.NEIGHBORS, start, allocated, 0, result.size(), 0, 0);
+		return result;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return outRows.getDegree(v);
+	}
+
+	@Override
+	public int getNeighbor(int u, int i) {
+		return outRows.getTarget(u, i);
+	}
+
+	@Override
+	public void forEachNeighbor(int index, IntConsumer action) {
+		for (int i = 0, degree = getDegree(index); i < degree; i++) {
+			action.accept(outRows.getTarget(index, i));
+		}
+	}
+
+	@Override
+	public double getNeighborWeight(int u, int i) {
+		return outRows.getWeight(u, i);
+	}
+
+	@Override
+	public void forEachWeightedNeighbor(int u, WeightedNeighborConsumer action) {
+		for (int i = 0, degree = getDegree(u); i < degree; i++) {
+			action.accept(outRows.getTarget(u, i), outRows.getWeight(u, i));
+		}
+	}
+
+	@Override
+	void forEachIncomingWeightedNeighbor(int v, WeightedNeighborConsumer action) {
+		getTranspose().forEachWeightedNeighbor(v, action);
+	}
+
+	@Override
+	WeightedEdge getWeightedEdge(int u, int i) {
+		return new WeightedEdge(u, getNeighbor(u, i), getNeighborWeight(u, i));
+	}
+
+	// Takes O(degree of u), rows are not indexed
+	@Override
+	public boolean hasEdge(int u, int v) {
+		return outRows.indexOf(u, v) != -1;
+	}
+
+	@Override
+	public double getWeight(int u, int v) throws Exception {
+		int i = outRows.indexOf(u, v);
+		if (i == -1) {
+			throw new Exception("Edge does not exist");
+		}
+		return outRows.getWeight(u, i);
+	}
+
+	@Override
+	public CsrGraph<V> freeze() {
+		int n = getSize();
+		int[] offsets = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			offsets[u + 1] = offsets[u] + getDegree(u);
+		}
+		int[] targets = new int[offsets[n]];
+		double[] weights = new double[offsets[n]];
+		for (int u = 0; u < n; u++) {
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				targets[offsets[u] + i] = outRows.getTarget(u, i);
+				weights[offsets[u] + i] = outRows.getWeight(u, i);
+			}
+		}
+		return new CsrGraph<>(vertices, offsets, targets, weights, isDirected);
+	}
+
+	@Override
+	public void printEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				System.out.print("(" + getVertex(u) + ", " + getVertex(getNeighbor(u, i)) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void printWeightedEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				System.out.print("(" + u + ", " + getNeighbor(u, i) + ", " + getNeighborWeight(u, i) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public boolean addVertex(V vertex) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public boolean addEdge(Edge e) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public boolean remove(V v) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public boolean remove(int u, int v) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public boolean setWeight(int u, int v, double weight) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public int removeVertices(Collection<V> toRemove) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+
+	@Override
+	public int removeEdges(int[] us, int[] vs) {
+		throw new UnsupportedOperationException("GraphSnapshot is immutable");
+	}
+}
@@ -0,0 +1,9 @@
+package graphs;
+
+// Estimates the cost of a shortest path between two vertices for A* search, for example from
+// their coordinates. The estimate must never exceed the real cost. If it also satisfies
+// estimate(u, t) <= weight(u, v) + estimate(v, t) for every edge (u, v), no vertex is searched twice.
+@FunctionalInterface
+public interface Heuristic<V> {
+	public double estimate(V from, V to);
+}
@@ -0,0 +1,97 @@
+package graphs;
+
+/*
+ * The connected components of a graph, kept up to date while the graph changes. Added edges
+ * and vertices are applied to a union-find as they happen, so a query after addEdge costs
+ * about as much as a find. Union-find cannot split sets, so removing an edge or vertex marks
+ * the components stale and the next query recomputes them with Connectivity. For directed
+ * graphs these are the weakly connected components.
+ *
+ * Queries and changes may come from different threads; each call is synchronized.
+ * */
+public class IncrementalComponents<V> implements GraphListener {
+	private final UnweightedGraph<V> graph;
+	private UnionFind components;
+	private boolean isStale; // Recompute on the next query
+	private long recomputations;
+
+	// Compute the components of graph and follow its changes
+	public IncrementalComponents(UnweightedGraph<V> graph) {
+		this.graph = graph;
+		recompute();
+		graph.addGraphListener(this);
+	}
+
+	// Stop following the changes of the graph; later queries may return stale results
+	public void detach() {
+		graph.removeGraphListener(this);
+	}
+
+	// Return true if u and v are in the same component
+	public synchronized boolean connected(int u, int v) {
+		update();
+		return components.connected(u, v);
+	}
+
+	// Return a vertex that represents the component of v until the graph changes
+	public synchronized int getComponent(int v) {
+		update();
+		return components.find(v);
+	}
+
+	// Return the number of vertices in the component of v
+	public synchronized int getComponentSize(int v) {
+		update();
+		return components.getSize(v);
+	}
+
+	public synchronized int getNumberOfComponents() {
+		update();
+		return components.getCount();
+	}
+
+	// Return how often the components were recomputed from scratch
+	public synchronized long getRecomputations() {
+		return recomputations;
+	}
+
+	@Override
+	public synchronized void edgeAdded(int u, int v, double weight) {
+		if (!isStale) {
+			components.union(u, v);
+		}
+	}
+
+	@Override
+	public synchronized void edgeRemoved(int u, int v, double weight) {
+		isStale = true;
+	}
+
+	@Override
+	public synchronized void vertexAdded(int v) {
+		if (!isStale) {
+			components.add();
+		}
+	}
+
+	@Override
+	public synchronized void verticesRemoved() {
+		isStale = true;
+	}
+
+	private void update() {
+		if (isStale) {
+			recompute();
+		}
+	}
+
+	private synchronized void recompute() {
+		int[] labels = Connectivity.connectedComponents(graph);
+		components = new UnionFind(labels.length);
+		for (int v = 0; v < labels.length; v++) {
+			components.union(v, labels[v]);
+		}
+		isStale = false;
+		recomputations++;
+	}
+}
@@ -0,0 +1,135 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Binary min-heap of vertex indices [0, capacity) keyed by a double, with decrease-key
+public class IndexedMinHeap {
+	private int[] heap; // heap[i] is the vertex stored at heap slot i
+	private int[] position; // position[v] is the heap slot of v, or -1 if v is not in the heap
+	private double[] keys; // keys[v] is the current key of v
+	private int size;
+
+	// Construct an empty heap for vertices 0 .. capacity - 1
+	public IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	// Return the number of vertices in the heap
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Return the number of vertices this heap can hold
+	public int capacity() {
+		return position.length;
+	}
+
+	// Return true if vertex v is in the heap
+	public boolean contains(int v) {
+		return position[v] != -1;
+	}
+
+	// Return the key of vertex v, which must be in the heap
+	public double getKey(int v) {
+		return keys[v];
+	}
+
+	// Insert v, or lower its key if it is already in the heap; return true if the heap changed
+	public boolean offer(int v, double key) {
+		int i = position[v];
+		if (i == -1) {
+			keys[v] = key;
+			heap[size] = v;
+			position[v] = size;
+			siftUp(size++);
+			return true;
+		} else if (key < keys[v]) {
+			keys[v] = key;
+			siftUp(i);
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	// Return the vertex with the smallest key without removing it
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty");
+		}
+		return heap[0];
+	}
+
+	// Return the smallest key in the heap
+	public double peekKey() {
+		return keys[peek()];
+	}
+
+	// Remove and return the vertex with the smallest key
+	public int poll() {
+		int min = peek();
+		position[min] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	// Remove all vertices, in time proportional to the number of vertices left in the heap
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		double key = keys[v];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = heap[parent];
+			if (keys[p] <= key) {
+				break;
+			}
+			heap[i] = p;
+			position[p] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		double key = keys[v];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int c = heap[child];
+			int right = child + 1;
+			if (right < size && keys[heap[right]] < keys[c]) {
+				child = right;
+				c = heap[child];
+			}
+			if (key <= keys[c]) {
+				break;
+			}
+			heap[i] = c;
+			position[c] = i;
+			i = child;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+}
@@ -0,0 +1,75 @@
+package graphs;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+// Growable list of ints backed by a primitive array; boxes only when read through List<Integer>
+public class IntList extends AbstractList<Integer> {
+	private int[] data;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int initialCapacity) {
+		data = new int[Math.max(initialCapacity, 1)];
+	}
+
+	// Append value to the end of the list
+	public void addInt(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+		data[size++] = value;
+	}
+
+	// Return the value at index without boxing
+	public int getInt(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return data[index];
+	}
+
+	// Return a copy of the values as an int array
+	public int[] toIntArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	@Override
+	public Integer get(int index) {
+		return getInt(index);
+	}
+
+	@Override
+	public Integer set(int index, Integer value) {
+		int old = getInt(index);
+		data[index] = value;
+		return old;
+	}
+
+	@Override
+	public Integer remove(int index) {
+		int old = getInt(index);
+		System.arraycopy(data, index + 1, data, index, size - index - 1);
+		size--;
+		return old;
+	}
+
+	@Override
+	public boolean add(Integer value) {
+		addInt(value);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+	}
+}
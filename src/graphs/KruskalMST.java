@@ -0,0 +1,23 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Kruskal's algorithm: scan the edges by increasing weight and keep those joining two components
+class KruskalMST implements MSTStrategy {
+	
+	@Override
+	public <V> WeightedGraph<V>.MST getMinimumSpanningTree(WeightedGraph<V> graph, int startingVertex,
+			boolean spanForest) {
+		WeightedEdge[] edges = SpanningForest.collectEdges(graph);
+		Arrays.parallelSort(edges); // WeightedEdge orders by weight
+		
+		UnionFind components = new UnionFind(graph.getSize());
+		int count = 0; // Selected edges are moved to the front of edges
+		for (int i = 0; i < edges.length && components.getCount() > 1; i++) {
+			if (components.union(edges[i].u, edges[i].v)) {
+				edges[count++] = edges[i];
+			}
+		}
+		return SpanningForest.toMST(graph, startingVertex, spanForest, edges, count);
+	}
+}
@@ -0,0 +1,104 @@
+package graphs;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * A histogram of durations in nanoseconds that any number of threads can record into without
+ * locks. Like HdrHistogram, values below 2^SUB_BUCKET_BITS get a bucket each, and every larger
+ * power of two range is cut into 2^SUB_BUCKET_BITS equal buckets, so a percentile is off by at
+ * most 1 / 2^SUB_BUCKET_BITS (about 3%) of its value, from 1 ns to centuries, in a fixed
+ * number of counters.
+ * */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	// Add a duration; negative durations count as 0
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	// Return the sum of all recorded durations
+	public long getTotalNanos() {
+		return total.get();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public double getMeanNanos() {
+		long n = count.get();
+		return n == 0 ? 0 : (double)total.get() / n;
+	}
+
+	// Return the duration that fraction q (0 <= q <= 1) of the recorded durations do not exceed,
+	// rounded up to the end of its bucket; 0 if nothing is recorded
+	public long getPercentileNanos(double q) {
+		if (!(q >= 0 && q <= 1)) {
+			throw new IllegalArgumentException("Percentile must be in [0, 1]: " + q);
+		}
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			n += counts.get(i);
+		}
+		long rank = Math.max(1, (long)Math.ceil(q * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return 0;
+	}
+
+	// Forget everything recorded; durations recorded at the same time may be partly kept
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	// Values below SUB_BUCKETS are their own bucket; otherwise the bucket is given by the highest
+	// set bit and the SUB_BUCKET_BITS bits below it
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	// The largest value that falls into bucket i
+	private static long highestValue(int i) {
+		if (i < SUB_BUCKETS) {
+			return i;
+		}
+		int shift = i / SUB_BUCKETS - 1;
+		long lowest = (long)(SUB_BUCKETS + i % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
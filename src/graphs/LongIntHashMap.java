@@ -0,0 +1,145 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from long keys to non-negative int values, with linear probing
+// and no per-entry objects. Lookups of missing keys return -1.
+public class LongIntHashMap {
+	private static final float LOAD_FACTOR = 0.5f;
+	
+	private long[] keys;
+	private int[] values; // values[slot] is the value + 1, 0 marks a free slot
+	private int mask;
+	private int size;
+	
+	public LongIntHashMap() {
+		this(16);
+	}
+	
+	public LongIntHashMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+	
+	// Return the number of entries
+	public int size() {
+		return size;
+	}
+	
+	// Return the value for key, or -1 if key is not in the map
+	public int get(long key) {
+		for (int slot = slot(key); values[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot] - 1;
+			}
+		}
+		return -1;
+	}
+	
+	public boolean containsKey(long key) {
+		return get(key) != -1;
+	}
+	
+	// Map key to value, return the previous value or -1
+	public int put(long key, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value: " + value);
+		}
+		int slot = slot(key);
+		for (; values[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				int old = values[slot] - 1;
+				values[slot] = value + 1;
+				return old;
+			}
+		}
+		keys[slot] = key;
+		values[slot] = value + 1;
+		if (++size > (mask + 1) * LOAD_FACTOR) {
+			rehash(keys.length * 2);
+		}
+		return -1;
+	}
+	
+	// Remove key, return its value or -1 if it was not in the map
+	public int remove(long key) {
+		int slot = slot(key);
+		for (; values[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				int old = values[slot] - 1;
+				shiftBack(slot);
+				size--;
+				return old;
+			}
+		}
+		return -1;
+	}
+	
+	// Remove all entries
+	public void clear() {
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+	
+	// Grow the table so that expectedSize entries fit without rehashing
+	public void ensureCapacity(int expectedSize) {
+		int capacity = tableSizeFor(expectedSize);
+		if (capacity > keys.length) {
+			rehash(capacity);
+		}
+	}
+	
+	// Close the gap at slot by moving back entries whose probe sequence passes through it
+	private void shiftBack(int gap) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (values[slot] == 0) {
+				break;
+			}
+			int home = slot(keys[slot]);
+			// Move the entry if its home slot is not in the cyclic range (gap, slot]
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		values[gap] = 0;
+	}
+	
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = slot(oldKeys[i]);
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+	
+	// Return a power of two table size that holds expectedSize entries under the load factor
+	private static int tableSizeFor(int expectedSize) {
+		long needed = (long)Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+		if (needed > 1 << 30) {
+			throw new IllegalArgumentException("Map too large: " + expectedSize);
+		}
+		return Integer.highestOneBit((int)needed - 1) << 1;
+	}
+}
@@ -0,0 +1,23 @@
+package graphs;
+
+// An algorithm for computing minimum spanning trees of a WeightedGraph.
+// Edges are treated as undirected, so the graph is expected to be undirected.
+public interface MSTStrategy {
+	// Prim's algorithm with a priority queue of candidate edges
+	public static final MSTStrategy LAZY_PRIM = new PrimMST(true);
+	
+	// Prim's algorithm with an indexed heap of vertex costs (decrease-key)
+	public static final MSTStrategy EAGER_PRIM = new PrimMST(false);
+	
+	// Kruskal's algorithm: sort the edges and join components with union-find
+	public static final MSTStrategy KRUSKAL = new KruskalMST();
+	
+	// Boruvka's algorithm: repeatedly add the cheapest edge leaving every component
+	public static final MSTStrategy BORUVKA = new BoruvkaMST();
+	
+	// Return an MST rooted at startingVertex. If spanForest is false the tree only covers the
+	// component of startingVertex; otherwise every other component adds a tree rooted at its
+	// lowest index, giving a minimum spanning forest.
+	public <V> WeightedGraph<V>.MST getMinimumSpanningTree(WeightedGraph<V> graph, int startingVertex,
+			boolean spanForest);
+}
@@ -0,0 +1,178 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+ * Shortest paths from many sources at once, for distance matrices and many-to-many tables.
+ *
+ * The sources are spread over the common fork-join pool, and each runs Dijkstra's algorithm in
+ * the cost, parent and heap arrays its thread keeps between sources, so a row costs no
+ * allocation. Rows are handed to a consumer as they are done instead of being collected, so
+ * the whole matrix never needs to be in memory. The consumer gets the thread's own arrays, valid
+ * only until accept returns. Should accept fork or join, a source stolen by the same thread
+ * meanwhile searches in new arrays, since the thread's are marked as lent out.
+ *
+ * Dense small graphs are better served by blocked Floyd-Warshall, which updates the distance
+ * matrix one BLOCK x BLOCK tile at a time so that the three tiles in use stay in cache. For
+ * each diagonal tile k it first closes tile (k, k), then the other tiles in row and column k,
+ * then all remaining tiles, each step in parallel.
+ * */
+final class ManySourceShortestPaths {
+	// Floyd-Warshall tiles are BLOCK x BLOCK; three of them fit in a typical L2 cache
+	private static final int BLOCK = 64;
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	private ManySourceShortestPaths() {
+	}
+
+	// Return true if Floyd-Warshall should beat a search per source, which it does on the
+	// measured graphs once the average degree reaches about a quarter of the vertices
+	static boolean isDense(Graph<?> graph) {
+		long edges = 0;
+		for (int u = 0; u < graph.getSize(); u++) {
+			edges += graph.getDegree(u);
+		}
+		return 4 * edges >= (long)graph.getSize() * graph.getSize();
+	}
+
+	// The arrays of one thread's searches
+	private static final class Buffers {
+		double[] cost = new double[0];
+		int[] parent;
+		IndexedMinHeap queue;
+		boolean isLent; // Whether a consumer holds cost and parent
+
+		void ensure(int n) {
+			if (cost.length != n) {
+				cost = new double[n];
+				parent = new int[n];
+				queue = new IndexedMinHeap(n);
+			}
+		}
+	}
+
+	// Pass the shortest paths from each source to consumer, from several threads at once
+	static void forEachSource(WeightedGraph<?> graph, int[] sources, ShortestPathRowConsumer consumer) {
+		checkIndices(graph, sources);
+		IntStream.range(0, sources.length).parallel().forEach(i -> {
+			Buffers buffers = search(graph, sources[i]);
+			buffers.isLent = true;
+			try {
+				consumer.accept(sources[i], buffers.cost, buffers.parent);
+			} finally {
+				buffers.isLent = false;
+			}
+		});
+	}
+
+	// Return the table of costs from each source (rows) to each target (columns)
+	static double[][] distances(WeightedGraph<?> graph, int[] sources, int[] targets) {
+		checkIndices(graph, sources);
+		checkIndices(graph, targets);
+		double[][] table = new double[sources.length][targets.length];
+		IntStream.range(0, sources.length).parallel().forEach(i -> {
+			double[] cost = search(graph, sources[i]).cost;
+			for (int j = 0; j < targets.length; j++) {
+				table[i][j] = cost[targets[j]];
+			}
+		});
+		return table;
+	}
+
+	// Run Dijkstra's algorithm from source in this thread's buffers, or in new ones if they are lent
+	// to a consumer
+	private static Buffers search(WeightedGraph<?> graph, int source) {
+		int n = graph.getSize();
+		Buffers buffers = BUFFERS.get();
+		if (buffers.isLent) {
+			buffers = new Buffers();
+		}
+		buffers.ensure(n);
+		double[] cost = buffers.cost;
+		int[] parent = buffers.parent;
+		IndexedMinHeap queue = buffers.queue;
+		Arrays.fill(cost, Double.POSITIVE_INFINITY);
+		Arrays.fill(parent, -1);
+		cost[source] = 0;
+		queue.offer(source, 0);
+		while (!queue.isEmpty()) {
+			int u = queue.poll();
+			for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+				int v = graph.getNeighbor(u, i);
+				double newCost = cost[u] + graph.getNeighborWeight(u, i);
+				// With nonnegative weights a settled vertex is never reached more cheaply
+				if (cost[v] > newCost) {
+					cost[v] = newCost;
+					parent[v] = u;
+					queue.offer(v, newCost);
+				}
+			}
+		}
+		return buffers;
+	}
+
+	// Return the matrix of costs between all pairs of vertices by blocked Floyd-Warshall
+	static double[][] floydWarshall(WeightedGraph<?> graph) {
+		int n = graph.getSize();
+		double[][] cost = new double[n][n];
+		IntStream.range(0, n).parallel().forEach(u -> {
+			double[] row = cost[u];
+			Arrays.fill(row, Double.POSITIVE_INFINITY);
+			row[u] = 0;
+			for (int i = 0, degree = graph.getDegree(u); i < degree; i++) {
+				row[graph.getNeighbor(u, i)] = Math.min(row[graph.getNeighbor(u, i)], graph.getNeighborWeight(u, i));
+			}
+		});
+
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		for (int k = 0; k < blocks; k++) {
+			int kb = k;
+			relax(cost, kb, kb, kb);
+			IntStream.range(0, blocks).parallel().forEach(b -> {
+				if (b != kb) {
+					relax(cost, kb, b, kb);
+					relax(cost, b, kb, kb);
+				}
+			});
+			IntStream.range(0, blocks * blocks).parallel().forEach(tile -> {
+				int ib = tile / blocks;
+				int jb = tile % blocks;
+				if (ib != kb && jb != kb) {
+					relax(cost, ib, jb, kb);
+				}
+			});
+		}
+		return cost;
+	}
+
+	// Shorten the paths in tile (ib, jb) through the vertices of block kb
+	private static void relax(double[][] cost, int ib, int jb, int kb) {
+		int n = cost.length;
+		int iEnd = Math.min(n, (ib + 1) * BLOCK);
+		int jStart = jb * BLOCK;
+		int jEnd = Math.min(n, jStart + BLOCK);
+		for (int k = kb * BLOCK, kEnd = Math.min(n, k + BLOCK); k < kEnd; k++) {
+			double[] costK = cost[k];
+			for (int i = ib * BLOCK; i < iEnd; i++) {
+				double[] costI = cost[i];
+				double costIK = costI[k];
+				if (costIK == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int j = jStart; j < jEnd; j++) {
+					double newCost = costIK + costK[j];
+					costI[j] = newCost < costI[j] ? newCost : costI[j]; // Without a branch the JIT can vectorize the loop
+				}
+			}
+		}
+	}
+
+	private static void checkIndices(Graph<?> graph, int[] vertices) {
+		for (int v : vertices) {
+			if (v < 0 || v >= graph.getSize()) {
+				throw new IllegalArgumentException("No such index: " + v);
+			}
+		}
+	}
+}
@@ -0,0 +1,418 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// A read-only graph that reads a file written by GraphFile in place. The file is memory-mapped,
+// so opening it costs no reading, the operating system pages rows in as they are used, and the
+// graph may be larger than the heap. Vertices and edges are decoded on every access, and
+// getIndex probes the hash stored in the file. Use freeze() to load the graph into a CsrGraph.
+public class MappedGraph<V> extends WeightedGraph<V> {
+	// Files are mapped in regions of this size; sections are aligned so no number crosses one
+	private static final int REGION_SHIFT = 30;
+	private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+	private final MappedByteBuffer[] regions;
+	private final int size;
+	private final int vertexKind;
+	private final boolean isWeighted;
+	private final boolean isCompressed;
+	private final long vertexTable;
+	private final long vertexHash;
+	private final int hashCapacity;
+	private final Rows rows;
+	private final MappedGraph<V> transpose; // The graph with every edge reversed, itself if undirected
+
+	// The positions of the arrays of one rows section
+	private static final class Rows {
+		final long offsets;
+		final long byteOffsets;
+		final long targets;
+		final long weights;
+
+		Rows(long offsets, long byteOffsets, long targets, long weights) {
+			this.offsets = offsets;
+			this.byteOffsets = byteOffsets;
+			this.targets = targets;
+			this.weights = weights;
+		}
+	}
+
+	// Where the last getNeighbor call on a compressed row stopped, so the next i continues from there
+	private static final class Cursor {
+		Rows rows;
+		int u = -1;
+		int i;
+		long position;
+		int target;
+	}
+
+	private static final ThreadLocal<Cursor> CURSOR = ThreadLocal.withInitial(Cursor::new);
+
+	// Map file, see GraphFile.map()
+	MappedGraph(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			long length = channel.size();
+			if (length < GraphFile.HEADER_BYTES) {
+				throw new IOException("Not a graph file: " + file);
+			}
+			regions = new MappedByteBuffer[(int)((length + REGION_MASK) >>> REGION_SHIFT)];
+			for (int r = 0; r < regions.length; r++) {
+				long start = (long)r << REGION_SHIFT;
+				regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length - start, 1L << REGION_SHIFT));
+				regions[r].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		} // The mapping stays valid after the channel is closed
+		if (getInt(0) != GraphFile.MAGIC) {
+			throw new IOException("Not a graph file: " + file);
+		}
+		if (getInt(4) != GraphFile.FORMAT_VERSION) {
+			throw new IOException("Unsupported graph file version " + getInt(4) + ": " + file);
+		}
+		int flags = getInt(8);
+		isDirected = (flags & GraphFile.DIRECTED) != 0;
+		isWeighted = (flags & GraphFile.WEIGHTED) != 0;
+		isCompressed = (flags & GraphFile.COMPRESSED) != 0;
+		vertexKind = getInt(12);
+		size = (int)getLong(16);
+		vertexTable = getLong(32);
+		vertexHash = getLong(40);
+		hashCapacity = (int)getLong(48);
+		rows = readRows(getLong(56));
+		transpose = isDirected ? new MappedGraph<>(this, readRows(getLong(64))) : this;
+		vertices = new VertexList();
+	}
+
+	// Construct the transpose of graph, which shares its mapping
+	private MappedGraph(MappedGraph<V> graph, Rows incoming) {
+		regions = graph.regions;
+		isDirected = true;
+		isWeighted = graph.isWeighted;
+		isCompressed = graph.isCompressed;
+		vertexKind = graph.vertexKind;
+		size = graph.size;
+		vertexTable = graph.vertexTable;
+		vertexHash = graph.vertexHash;
+		hashCapacity = graph.hashCapacity;
+		rows = incoming;
+		transpose = graph;
+		vertices = new VertexList();
+	}
+
+	private Rows readRows(long position) {
+		return new Rows(getLong(position), getLong(position + 8), getLong(position + 16), getLong(position + 24));
+	}
+
+	private final class VertexList extends AbstractList<V> {
+		@Override
+		public V get(int index) {
+			return getVertex(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private int getInt(long position) {
+		return regions[(int)(position >>> REGION_SHIFT)].getInt((int)(position & REGION_MASK));
+	}
+
+	private long getLong(long position) {
+		return regions[(int)(position >>> REGION_SHIFT)].getLong((int)(position & REGION_MASK));
+	}
+
+	private double getDouble(long position) {
+		return regions[(int)(position >>> REGION_SHIFT)].getDouble((int)(position & REGION_MASK));
+	}
+
+	private byte getByte(long position) {
+		return regions[(int)(position >>> REGION_SHIFT)].get((int)(position & REGION_MASK));
+	}
+
+	// Return true if the rows are varint-encoded rather than plain ints
+	public boolean isCompressed() {
+		return isCompressed;
+	}
+
+	public boolean isWeighted() {
+		return isWeighted;
+	}
+
+	// Return the number of adjacency entries (each undirected edge counts twice)
+	public long getNumberOfEdges() {
+		return getLong(rows.offsets + 8L * size);
+	}
+
+	// Return the graph with every edge reversed, which is stored in the same file
+	public MappedGraph<V> getTranspose() {
+		return transpose;
+	}
+
+	@Override
+	MappedGraph<V> getIncomingGraph() {
+		return transpose;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V getVertex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("No such index: " + index);
+		}
+		switch (vertexKind) {
+			case GraphFile.INDICES:
+				return (V)Integer.valueOf(index);
+			case GraphFile.INTS:
+				return (V)Integer.valueOf(getInt(vertexTable + 4L * index));
+			case GraphFile.LONGS:
+				return (V)Long.valueOf(getLong(vertexTable + 8L * index));
+			default:
+				long start = getLong(vertexTable + 8L * index);
+				byte[] bytes = new byte[(int)(getLong(vertexTable + 8L * (index + 1)) - start)];
+				long strings = vertexTable + 8L * (size + 1);
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i] = getByte(strings + start + i);
+				}
+				return (V)new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	@Override
+	public int getIndex(V v) {
+		if (vertexKind == GraphFile.INDICES) {
+			return v instanceof Integer && (Integer)v >= 0 && (Integer)v < size ? (Integer)v : -1;
+		}
+		for (int slot = GraphFile.hash(v) & (hashCapacity - 1); ; slot = (slot + 1) & (hashCapacity - 1)) {
+			int index = getInt(vertexHash + 4L * slot) - 1;
+			if (index == -1 || getVertex(index).equals(v)) {
+				return index;
+			}
+		}
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return (int)(getLong(rows.offsets + 8L * (v + 1)) - getLong(rows.offsets + 8L * v));
+	}
+
+	// Takes O(1) for plain rows and for compressed rows read in order, O(i) otherwise
+	@Override
+	public int getNeighbor(int u, int i) {
+		if (!isCompressed) {
+			return getInt(rows.targets + 4 * (getLong(rows.offsets + 8L * u) + i));
+		}
+		Cursor cursor = CURSOR.get();
+		if (cursor.rows != rows || cursor.u != u || cursor.i > i) {
+			cursor.rows = rows;
+			cursor.u = u;
+			cursor.i = -1;
+			cursor.position = rows.targets + getLong(rows.byteOffsets + 8L * u);
+		}
+		while (cursor.i < i) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = getByte(cursor.position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			cursor.target = cursor.i == -1 ? u + GraphFile.unzigzag(value) : cursor.target + value;
+			cursor.i++;
+		}
+		return cursor.target;
+	}
+
+	@Override
+	public double getNeighborWeight(int u, int i) {
+		return isWeighted ? getDouble(rows.weights + 8 * (getLong(rows.offsets + 8L * u) + i)) : 1;
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int index) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		List<Integer> result = new ArrayList<>(getDegree(index));
+		for (int i = 0, degree = getDegree(index); i < degree; i++) {
+			result.add(getNeighbor(index, i));
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.NEIGHBORS, start, allocated, 0, result.size(), 0, 0);
+		return result;
+	}
+
+	@Override
+	public void forEachNeighbor(int index, IntConsumer action) {
+		if (isCompressed) {
+			forEachCompressedNeighbor(index, false, (v, weight) -> action.accept(v));
+			return;
+		}
+		for (int i = 0, degree = getDegree(index); i < degree; i++) {
+			action.accept(getNeighbor(index, i));
+		}
+	}
+
+	@Override
+	public void forEachWeightedNeighbor(int u, WeightedNeighborConsumer action) {
+		if (isCompressed) {
+			forEachCompressedNeighbor(u, true, action);
+			return;
+		}
+		for (int i = 0, degree = getDegree(u); i < degree; i++) {
+			action.accept(getNeighbor(u, i), getNeighborWeight(u, i));
+		}
+	}
+
+	// Decode the compressed row of u in one pass of its own rather than through the shared cursor,
+	// which action may move by reading other rows; weights are passed as 1 unless withWeights
+	private void forEachCompressedNeighbor(int u, boolean withWeights, WeightedNeighborConsumer action) {
+		long position = rows.targets + getLong(rows.byteOffsets + 8L * u);
+		long weights = rows.weights + 8 * getLong(rows.offsets + 8L * u);
+		int target = u;
+		for (int i = 0, degree = getDegree(u); i < degree; i++) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = getByte(position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			target = i == 0 ? u + GraphFile.unzigzag(value) : target + value;
+			action.accept(target, withWeights && isWeighted ? getDouble(weights + 8L * i) : 1);
+		}
+	}
+
+	@Override
+	void forEachIncomingWeightedNeighbor(int v, WeightedNeighborConsumer action) {
+		transpose.forEachWeightedNeighbor(v, action);
+	}
+
+	@Override
+	WeightedEdge getWeightedEdge(int u, int i) {
+		return new WeightedEdge(u, getNeighbor(u, i), getNeighborWeight(u, i));
+	}
+
+	// Return the position of v in the row of u, or -1; takes O(degree of u)
+	private int indexOf(int u, int v) {
+		for (int i = 0, degree = getDegree(u); i < degree; i++) {
+			if (getNeighbor(u, i) == v) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean hasEdge(int u, int v) {
+		return indexOf(u, v) != -1;
+	}
+
+	@Override
+	public double getWeight(int u, int v) throws Exception {
+		int i = indexOf(u, v);
+		if (i == -1) {
+			throw new Exception("Edge does not exist");
+		}
+		return getNeighborWeight(u, i);
+	}
+
+	// Load the graph into the heap
+	@Override
+	public CsrGraph<V> freeze() {
+		int n = getSize();
+		int[] offsets = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			offsets[u + 1] = offsets[u] + getDegree(u);
+		}
+		int[] targets = new int[offsets[n]];
+		double[] weights = isWeighted ? new double[offsets[n]] : null;
+		for (int u = 0; u < n; u++) {
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				targets[offsets[u] + i] = getNeighbor(u, i);
+				if (weights != null) {
+					weights[offsets[u] + i] = getNeighborWeight(u, i);
+				}
+			}
+		}
+		return new CsrGraph<>(new ArrayList<>(vertices), offsets, targets, weights, isDirected);
+	}
+
+	@Override
+	public void printEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				System.out.print("(" + getVertex(u) + ", " + getVertex(getNeighbor(u, i)) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void printWeightedEdges() {
+		for (int u = 0; u < getSize(); u++) {
+			System.out.print(getVertex(u) + " (" + u + "): ");
+			for (int i = 0, degree = getDegree(u); i < degree; i++) {
+				System.out.print("(" + u + ", " + getNeighbor(u, i) + ", " + getNeighborWeight(u, i) + ") ");
+			}
+			System.out.println();
+		}
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public boolean addVertex(V vertex) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public boolean addEdge(Edge e) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public boolean remove(V v) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public boolean remove(int u, int v) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public boolean setWeight(int u, int v, double weight) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public int removeVertices(Collection<V> toRemove) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+
+	@Override
+	public int removeEdges(int[] us, int[] vs) {
+		throw new UnsupportedOperationException("MappedGraph is read-only");
+	}
+}
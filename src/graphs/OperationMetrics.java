@@ -0,0 +1,117 @@
+package graphs;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latencies of the calls of one algorithm, see GraphMetrics
+public final class OperationMetrics implements OperationMetricsMXBean {
+	private final GraphMetrics.Algorithm algorithm;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder settledVertices = new LongAdder();
+	private final LongAdder edgesScanned = new LongAdder();
+	private final LongAdder relaxations = new LongAdder();
+	private final LongAdder heapOperations = new LongAdder();
+	private final LongAdder allocatedBytes = new LongAdder();
+	private volatile boolean isAllocationKnown = true; // False once a call could not measure it
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	OperationMetrics(GraphMetrics.Algorithm algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	void record(long nanos, long settled, long scanned, long relaxed, long heapOps, long allocated) {
+		calls.increment();
+		settledVertices.add(settled);
+		edgesScanned.add(scanned);
+		relaxations.add(relaxed);
+		heapOperations.add(heapOps);
+		if (allocated < 0) {
+			isAllocationKnown = false;
+		} else {
+			allocatedBytes.add(allocated);
+		}
+		latency.record(nanos);
+	}
+
+	public GraphMetrics.Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	// Return the latencies of the calls in nanoseconds
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	@Override
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	@Override
+	public long getSettledVertices() {
+		return settledVertices.sum();
+	}
+
+	@Override
+	public long getEdgesScanned() {
+		return edgesScanned.sum();
+	}
+
+	@Override
+	public long getRelaxations() {
+		return relaxations.sum();
+	}
+
+	@Override
+	public long getHeapOperations() {
+		return heapOperations.sum();
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return isAllocationKnown ? allocatedBytes.sum() : -1;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		return latency.getMeanNanos() / 1e3;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return latency.getPercentileNanos(0.5) / 1e3;
+	}
+
+	@Override
+	public double getP90Micros() {
+		return latency.getPercentileNanos(0.9) / 1e3;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return latency.getPercentileNanos(0.99) / 1e3;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return latency.getMaxNanos() / 1e3;
+	}
+
+	@Override
+	public void reset() {
+		calls.reset();
+		settledVertices.reset();
+		edgesScanned.reset();
+		relaxations.reset();
+		heapOperations.reset();
+		allocatedBytes.reset();
+		isAllocationKnown = true;
+		latency.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-24s %10d calls %14d settled %14d scanned %14d relaxed %14d heap ops "
+				+ "%10.1f us p50 %10.1f us p99 %10.1f us max", algorithm, getCalls(), getSettledVertices(),
+				getEdgesScanned(), getRelaxations(), getHeapOperations(), getP50Micros(), getP99Micros(), getMaxMicros());
+	}
+}
@@ -0,0 +1,29 @@
+package graphs;
+
+// The metrics of one algorithm as seen over JMX, see GraphMetrics.registerMBeans()
+public interface OperationMetricsMXBean {
+	public long getCalls();
+
+	public long getSettledVertices();
+
+	public long getEdgesScanned();
+
+	public long getRelaxations();
+
+	public long getHeapOperations();
+
+	// Bytes allocated by the calls, or -1 if the JVM cannot tell
+	public long getAllocatedBytes();
+
+	public double getMeanMicros();
+
+	public double getP50Micros();
+
+	public double getP90Micros();
+
+	public double getP99Micros();
+
+	public double getMaxMicros();
+
+	public void reset();
+}
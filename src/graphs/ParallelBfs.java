@@ -0,0 +1,170 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/*
+ * Level-synchronous parallel breadth-first search with direction optimization (Beamer et al.).
+ * Each level expands the frontier either top-down, where frontier chunks claim unvisited
+ * neighbors with a compare-and-set on parent, or bottom-up, where every unvisited vertex
+ * looks for a parent among its incoming neighbors that are in the frontier. Bottom-up steps
+ * pay off on low-diameter graphs once the frontier holds a large share of the edges.
+ *
+ * The search order lists the vertices level by level. Within a level the order, and which
+ * frontier vertex becomes the parent of a vertex, can differ from run to run.
+ * */
+final class ParallelBfs {
+	// Switch to bottom-up when the frontier's edges exceed the unvisited edges / ALPHA
+	private static final int ALPHA = 14;
+	// Switch back to top-down when the frontier shrinks below the vertex count / BETA
+	private static final int BETA = 24;
+	// Frontier vertices or graph vertices handled by one task
+	private static final int CHUNK = 1024;
+
+	private ParallelBfs() {
+	}
+
+	static <V> UnweightedGraph<V>.SearchTree search(UnweightedGraph<V> graph, int root) {
+		int n = graph.getSize();
+		if (root < 0 || root >= n) {
+			throw new IllegalArgumentException("No such index: " + root);
+		}
+		// In-neighbors for bottom-up steps, or null if the graph cannot provide them cheaply
+		UnweightedGraph<V> incoming = graph.getIncomingGraph();
+
+		// parent[v] is -1 until v is visited; the root is its own parent during the search
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			parent.lazySet(i, -1);
+		}
+		parent.set(root, root);
+		boolean[] inFrontier = null; // Frontier membership, only kept during bottom-up steps
+
+		IntList searchOrder = new IntList();
+		searchOrder.addInt(root);
+		int[] frontier = {root};
+		long unvisitedEdges = totalDegree(graph) - graph.getDegree(root);
+		boolean isBottomUp = false;
+
+		while (frontier.length > 0) {
+			if (incoming != null) {
+				long frontierEdges = degreeSum(graph, frontier);
+				if (!isBottomUp && frontierEdges > unvisitedEdges / ALPHA) {
+					isBottomUp = true;
+				} else if (isBottomUp && frontier.length < n / BETA) {
+					isBottomUp = false;
+				}
+			}
+
+			int[] next;
+			if (isBottomUp) {
+				if (inFrontier == null) {
+					inFrontier = new boolean[n];
+				}
+				boolean[] flags = inFrontier;
+				int[] current = frontier;
+				IntStream.range(0, chunks(current.length)).parallel().forEach(c -> {
+					for (int i = c * CHUNK; i < Math.min(current.length, (c + 1) * CHUNK); i++) {
+						flags[current[i]] = true;
+					}
+				});
+				next = bottomUpStep(incoming, parent, flags, n);
+				IntStream.range(0, chunks(current.length)).parallel().forEach(c -> {
+					for (int i = c * CHUNK; i < Math.min(current.length, (c + 1) * CHUNK); i++) {
+						flags[current[i]] = false;
+					}
+				});
+			} else {
+				next = topDownStep(graph, parent, frontier);
+			}
+
+			for (int v : next) {
+				searchOrder.addInt(v);
+			}
+			if (incoming != null) {
+				unvisitedEdges -= degreeSum(graph, next);
+			}
+			frontier = next;
+		}
+
+		int[] parents = new int[n];
+		for (int i = 0; i < n; i++) {
+			parents[i] = parent.get(i);
+		}
+		parents[root] = -1;
+		return graph.new SearchTree(root, parents, searchOrder);
+	}
+
+	// Every frontier vertex claims its unvisited neighbors
+	private static int[] topDownStep(UnweightedGraph<?> graph, AtomicIntegerArray parent, int[] frontier) {
+		int chunks = chunks(frontier.length);
+		IntList[] found = new IntList[chunks];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			IntList next = new IntList();
+			for (int i = c * CHUNK; i < Math.min(frontier.length, (c + 1) * CHUNK); i++) {
+				int u = frontier[i];
+				for (int j = 0, degree = graph.getDegree(u); j < degree; j++) {
+					int w = graph.getNeighbor(u, j);
+					if (parent.get(w) == -1 && parent.compareAndSet(w, -1, u)) {
+						next.addInt(w);
+					}
+				}
+			}
+			found[c] = next;
+		});
+		return concatenate(found);
+	}
+
+	// Every unvisited vertex looks for an incoming neighbor in the frontier
+	private static int[] bottomUpStep(UnweightedGraph<?> incoming, AtomicIntegerArray parent,
+			boolean[] inFrontier, int n) {
+		int chunks = chunks(n);
+		IntList[] found = new IntList[chunks];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			IntList next = new IntList();
+			for (int w = c * CHUNK; w < Math.min(n, (c + 1) * CHUNK); w++) {
+				if (parent.get(w) != -1) {
+					continue;
+				}
+				for (int j = 0, degree = incoming.getDegree(w); j < degree; j++) {
+					int u = incoming.getNeighbor(w, j);
+					if (inFrontier[u]) {
+						parent.set(w, u); // Only this task looks at w
+						next.addInt(w);
+						break;
+					}
+				}
+			}
+			found[c] = next;
+		});
+		return concatenate(found);
+	}
+
+	static int[] concatenate(IntList[] lists) {
+		int size = 0;
+		for (IntList list : lists) {
+			size += list.size();
+		}
+		int[] result = new int[size];
+		int i = 0;
+		for (IntList list : lists) {
+			for (int j = 0; j < list.size(); j++) {
+				result[i++] = list.getInt(j);
+			}
+		}
+		return result;
+	}
+
+	private static long degreeSum(UnweightedGraph<?> graph, int[] vertices) {
+		return Arrays.stream(vertices).parallel().mapToLong(graph::getDegree).sum();
+	}
+
+	private static long totalDegree(UnweightedGraph<?> graph) {
+		return IntStream.range(0, graph.getSize()).parallel().mapToLong(graph::getDegree).sum();
+	}
+
+	private static int chunks(int size) {
+		return (size + CHUNK - 1) / CHUNK;
+	}
+}
@@ -0,0 +1,79 @@
+package graphs;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Compares delta-stepping (parallelShortestPath) against sequential Dijkstra (getShortestPath)
+ * on a power-law R-MAT graph and a grid of about the same size, running delta-stepping in
+ * pools of 1, 2, 4, ... threads up to the number of cores. Every run is checked against the
+ * costs Dijkstra's algorithm found. Times are the median of the measured runs.
+ *
+ * Usage: ParallelShortestPathBenchmark [scale] [runs] [seed]
+ *   scale: the graphs have about 2^scale vertices (default 20)
+ *   runs:  measured runs per configuration, after one warm-up run (default 5)
+ * */
+public class ParallelShortestPathBenchmark {
+	private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		int scale = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+		int cores = Runtime.getRuntime().availableProcessors();
+		int side = (int)Math.sqrt(1 << scale);
+
+		Map<String, CsrGraph<Integer>> graphs = new LinkedHashMap<>();
+		graphs.put("rmat", GraphGenerators.rmat(scale, 8, seed).buildCsr());
+		graphs.put("grid", GraphGenerators.grid(side, side, seed).buildCsr());
+
+		System.out.printf("%-6s %10s %12s %8s %12s %10s%n", "graph", "vertices", "edges", "threads", "time (ms)", "speedup");
+		for (Map.Entry<String, CsrGraph<Integer>> entry : graphs.entrySet()) {
+			CsrGraph<Integer> graph = entry.getValue();
+			int source = new Random(seed).nextInt(graph.getSize());
+			WeightedGraph<Integer>.ShortestPathTree expected = graph.getShortestPath(source);
+			double dijkstraMillis = median(runs, () -> graph.getShortestPath(source));
+			System.out.printf("%-6s %10d %12d %8s %12.1f %10s%n", entry.getKey(), graph.getSize(),
+					graph.getNumberOfEdges(), "dijkstra", dijkstraMillis, "1.0x");
+
+			for (int threads : THREADS) {
+				if (threads > cores) {
+					break;
+				}
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				try {
+					// Parallel streams started inside a pool's task run in that pool
+					check(expected, pool.submit(() -> graph.parallelShortestPath(source)).get(), graph.getSize());
+					double millis = median(runs, () -> pool.submit(() -> graph.parallelShortestPath(source)).join());
+					System.out.printf("%-6s %10d %12d %8d %12.1f %9.1fx%n", entry.getKey(), graph.getSize(),
+							graph.getNumberOfEdges(), threads, millis, dijkstraMillis / millis);
+				} finally {
+					pool.shutdown();
+				}
+			}
+		}
+	}
+
+	// Run action once to warm up, then runs times, and return the median time in milliseconds
+	private static double median(int runs, Runnable action) {
+		action.run();
+		double[] millis = new double[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			action.run();
+			millis[i] = (System.nanoTime() - start) / 1e6;
+		}
+		Arrays.sort(millis);
+		return millis[runs / 2];
+	}
+
+	private static void check(WeightedGraph<Integer>.ShortestPathTree expected, WeightedGraph<Integer>.ShortestPathTree tree, int n) {
+		for (int v = 0; v < n; v++) {
+			if (expected.getCost(v) != tree.getCost(v)) {
+				throw new IllegalStateException("Cost mismatch at vertex " + v + ": "
+						+ expected.getCost(v) + " != " + tree.getCost(v));
+			}
+		}
+	}
+}
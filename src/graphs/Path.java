@@ -0,0 +1,59 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A shortest path between two vertices, see WeightedGraph.getShortestPath(int, int)
+public class Path<V> {
+	private final List<V> vertices;
+	private final int[] indices;
+	private final double cost;
+	private final int settledVertices;
+
+	Path(Graph<V> graph, int[] indices, double cost, int settledVertices) {
+		List<V> list = new ArrayList<>(indices.length);
+		for (int v : indices) {
+			list.add(graph.getVertex(v));
+		}
+		this.vertices = Collections.unmodifiableList(list);
+		this.indices = indices;
+		this.cost = cost;
+		this.settledVertices = settledVertices;
+	}
+
+	// Return true if the target can be reached from the source
+	public boolean isFound() {
+		return indices.length > 0;
+	}
+
+	// Return the cost of the path, infinite if there is none
+	public double getCost() {
+		return cost;
+	}
+
+	// Return the vertices of the path from source to target, empty if there is none
+	public List<V> getVertices() {
+		return vertices;
+	}
+
+	// Return the indices of the vertices of the path from source to target
+	public int[] getIndices() {
+		return indices.clone();
+	}
+
+	// Return the number of edges on the path
+	public int getLength() {
+		return Math.max(indices.length - 1, 0);
+	}
+
+	// Return the number of vertices the search settled to find the path
+	public int getNumberOfSettledVertices() {
+		return settledVertices;
+	}
+
+	@Override
+	public String toString() {
+		return isFound() ? vertices + " (cost: " + cost + ")" : "No path";
+	}
+}
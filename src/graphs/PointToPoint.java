@@ -0,0 +1,195 @@
+package graphs;
+
+import java.util.Arrays;
+
+/*
+ * Shortest path queries between two vertices, which stop as soon as the path is known
+ * instead of building a whole ShortestPathTree.
+ *
+ * The bidirectional search runs Dijkstra's algorithm forward from the source and backward
+ * from the target over the incoming edges, always expanding the side with the smaller
+ * queue. It stops once the smallest keys of both queues add up to at least the best path
+ * through a vertex reached from both sides. A* search runs forward only, ordering the queue
+ * by cost plus the heuristic's estimate of the rest of the path.
+ *
+ * Each thread keeps its cost, parent and heap arrays between queries. The arrays are stamped
+ * with the query they belong to, so a query only touches the vertices it reaches.
+ * */
+final class PointToPoint {
+	private static final ThreadLocal<Side[]> SIDES = ThreadLocal.withInitial(() -> new Side[] {new Side(), new Side()});
+
+	private PointToPoint() {
+	}
+
+	// The search state of one direction, also used by ContractionHierarchy
+	static final class Side {
+		double[] cost;
+		int[] parent;
+		int[] stamp; // stamp[v] == query iff v is reached in this query
+		int query;
+		IndexedMinHeap queue;
+
+		void reset(int n) {
+			if (cost == null || cost.length < n) {
+				cost = new double[n];
+				parent = new int[n];
+				stamp = new int[n];
+				queue = new IndexedMinHeap(n);
+				query = 0;
+			}
+			queue.clear();
+			if (++query == 0) { // Stamps wrapped around, forget them all
+				Arrays.fill(stamp, 0);
+				query = 1;
+			}
+		}
+
+		boolean isReached(int v) {
+			return stamp[v] == query;
+		}
+
+		double getCost(int v) {
+			return stamp[v] == query ? cost[v] : Double.POSITIVE_INFINITY;
+		}
+
+		// Reach v with the given cost from parent u, return true if that is cheaper than before
+		boolean reach(int v, double newCost, int u) {
+			if (newCost < getCost(v)) {
+				stamp[v] = query;
+				cost[v] = newCost;
+				parent[v] = u;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	static <V> Path<V> bidirectional(WeightedGraph<V> graph, int source, int target) {
+		checkIndex(graph, source);
+		checkIndex(graph, target);
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		int n = graph.getSize();
+		WeightedGraph<V> reverse = graph.getIncomingGraph();
+		Side[] sides = SIDES.get();
+		Side forward = sides[0];
+		Side backward = sides[1];
+		forward.reset(n);
+		backward.reset(n);
+		forward.reach(source, 0, -1);
+		forward.queue.offer(source, 0);
+		backward.reach(target, 0, -1);
+		backward.queue.offer(target, 0);
+
+		double best = source == target ? 0 : Double.POSITIVE_INFINITY; // Cheapest path found so far
+		int meet = source == target ? source : -1; // The vertex where it joins both searches
+		int settled = 0;
+		long scanned = 0;
+		long relaxations = 0;
+		while (!forward.queue.isEmpty() && !backward.queue.isEmpty()
+				&& forward.queue.peekKey() + backward.queue.peekKey() < best) {
+			boolean isForward = forward.queue.size() <= backward.queue.size();
+			Side side = isForward ? forward : backward;
+			Side other = isForward ? backward : forward;
+			WeightedGraph<V> edges = isForward ? graph : reverse;
+
+			int u = side.queue.poll();
+			settled++;
+			int degree = edges.getDegree(u);
+			scanned += degree;
+			for (int i = 0; i < degree; i++) {
+				int v = edges.getNeighbor(u, i);
+				double newCost = side.cost[u] + edges.getNeighborWeight(u, i);
+				if (side.reach(v, newCost, u)) {
+					side.queue.offer(v, newCost);
+					relaxations++;
+				}
+				if (other.isReached(v) && side.cost[v] + other.cost[v] < best) {
+					best = side.cost[v] + other.cost[v];
+					meet = v;
+				}
+			}
+		}
+		// Both ends and every relaxation were offered, every settled vertex polled
+		GraphMetrics.record(GraphMetrics.Algorithm.POINT_TO_POINT, start, allocated, settled, scanned, relaxations,
+				2 + relaxations + settled);
+		if (meet == -1) {
+			return new Path<>(graph, new int[0], Double.POSITIVE_INFINITY, settled);
+		}
+
+		// Walk back from meet to the source, then on to the target
+		int forwardLength = 0;
+		for (int v = meet; v != -1; v = forward.parent[v]) {
+			forwardLength++;
+		}
+		int length = forwardLength - 1;
+		for (int v = meet; v != -1; v = backward.parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		int i = forwardLength - 1;
+		for (int v = meet; v != -1; v = forward.parent[v]) {
+			path[i--] = v;
+		}
+		i = forwardLength;
+		for (int v = backward.parent[meet]; v != -1; v = backward.parent[v]) {
+			path[i++] = v;
+		}
+		return new Path<>(graph, path, best, settled);
+	}
+
+	static <V> Path<V> aStar(WeightedGraph<V> graph, int source, int target, Heuristic<V> heuristic) {
+		checkIndex(graph, source);
+		checkIndex(graph, target);
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		V goal = graph.getVertex(target);
+		Side forward = SIDES.get()[0];
+		forward.reset(graph.getSize());
+		forward.reach(source, 0, -1);
+		forward.queue.offer(source, heuristic.estimate(graph.getVertex(source), goal));
+
+		int settled = 0;
+		long scanned = 0;
+		long relaxations = 0;
+		while (!forward.queue.isEmpty()) {
+			int u = forward.queue.poll();
+			settled++;
+			if (u == target) {
+				break;
+			}
+			int degree = graph.getDegree(u);
+			scanned += degree;
+			for (int i = 0; i < degree; i++) {
+				int v = graph.getNeighbor(u, i);
+				double newCost = forward.cost[u] + graph.getNeighborWeight(u, i);
+				// A vertex reached more cheaply after it was settled is searched again
+				if (forward.reach(v, newCost, u)) {
+					forward.queue.offer(v, newCost + heuristic.estimate(graph.getVertex(v), goal));
+					relaxations++;
+				}
+			}
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.A_STAR, start, allocated, settled, scanned, relaxations,
+				1 + relaxations + settled);
+		if (!forward.isReached(target)) {
+			return new Path<>(graph, new int[0], Double.POSITIVE_INFINITY, settled);
+		}
+
+		int length = 0;
+		for (int v = target; v != -1; v = forward.parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, i = length - 1; v != -1; v = forward.parent[v]) {
+			path[i--] = v;
+		}
+		return new Path<>(graph, path, forward.cost[target], settled);
+	}
+
+	private static void checkIndex(Graph<?> graph, int v) {
+		if (v < 0 || v >= graph.getSize()) {
+			throw new IllegalArgumentException("No such index: " + v);
+		}
+	}
+}
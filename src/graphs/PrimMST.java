@@ -0,0 +1,98 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+// Prim's algorithm. The eager version keeps one heap entry per vertex and lowers its cost
+// with decrease-key; the lazy version queues every edge leaving the tree and skips stale ones.
+class PrimMST implements MSTStrategy {
+	private boolean lazy;
+	
+	PrimMST(boolean lazy) {
+		this.lazy = lazy;
+	}
+	
+	@Override
+	public <V> WeightedGraph<V>.MST getMinimumSpanningTree(WeightedGraph<V> graph, int startingVertex,
+			boolean spanForest) {
+		int[] parent = new int[graph.getSize()]; // Parent of a vertex, -1 for roots
+		Arrays.fill(parent, -1);
+		boolean[] isInTree = new boolean[graph.getSize()];
+		IntList T = new IntList(); // Vertices in the order they joined the tree
+		
+		// The queues are empty again once a tree is grown, so every tree of a forest shares them;
+		// cost[v] is written before it is read
+		double[] cost = lazy ? null : new double[graph.getSize()];
+		IndexedMinHeap vertexQueue = lazy ? null : new IndexedMinHeap(graph.getSize());
+		PriorityQueue<WeightedEdge> edgeQueue = lazy ? new PriorityQueue<>() : null;
+		
+		double totalWeight = lazy ? growLazy(graph, startingVertex, parent, isInTree, T, edgeQueue)
+				: growEager(graph, startingVertex, parent, isInTree, T, cost, vertexQueue);
+		if (spanForest) {
+			for (int root = 0; root < graph.getSize(); root++) {
+				if (!isInTree[root]) {
+					totalWeight += lazy ? growLazy(graph, root, parent, isInTree, T, edgeQueue)
+							: growEager(graph, root, parent, isInTree, T, cost, vertexQueue);
+				}
+			}
+		}
+		return graph.new MST(startingVertex, parent, T, totalWeight);
+	}
+	
+	// Grow a tree from root over the vertices not yet in a tree, return its weight.
+	// cost[v] stores the cost by adding v to the tree; queue must be empty.
+	private double growEager(WeightedGraph<?> graph, int root, int[] parent, boolean[] isInTree, IntList T,
+			double[] cost, IndexedMinHeap queue) {
+		queue.offer(root, 0);
+		cost[root] = 0;
+		double totalWeight = 0;
+		
+		while (!queue.isEmpty()) {
+			int u = queue.poll(); // The smallest cost u in V - T
+			isInTree[u] = true;
+			T.addInt(u);
+			totalWeight += cost[u];
+			
+			// Adjust cost[v] for v that is adjacent to u and v in V - T
+			for (int i = 0; i < graph.getDegree(u); i++) {
+				int v = graph.getNeighbor(u, i);
+				double weight = graph.getNeighborWeight(u, i);
+				if (!isInTree[v] && (!queue.contains(v) || weight < cost[v])) {
+					cost[v] = weight;
+					parent[v] = u;
+					queue.offer(v, weight);
+				}
+			}
+		}
+		return totalWeight;
+	}
+	
+	// Grow a tree from root like growEager, queueing edges instead; queue must be empty
+	private double growLazy(WeightedGraph<?> graph, int root, int[] parent, boolean[] isInTree, IntList T,
+			PriorityQueue<WeightedEdge> queue) {
+		double totalWeight = 0;
+		visit(graph, root, isInTree, T, queue);
+		
+		while (!queue.isEmpty()) {
+			WeightedEdge e = queue.poll(); // Cheapest edge leaving the tree, or a stale one
+			if (isInTree[e.v]) {
+				continue;
+			}
+			parent[e.v] = e.u;
+			totalWeight += e.weight;
+			visit(graph, e.v, isInTree, T, queue);
+		}
+		return totalWeight;
+	}
+	
+	// Add u to the tree and queue the edges from u to vertices outside the tree
+	private void visit(WeightedGraph<?> graph, int u, boolean[] isInTree, IntList T, PriorityQueue<WeightedEdge> queue) {
+		isInTree[u] = true;
+		T.addInt(u);
+		for (int i = 0; i < graph.getDegree(u); i++) {
+			if (!isInTree[graph.getNeighbor(u, i)]) {
+				queue.offer(graph.getWeightedEdge(u, i));
+			}
+		}
+	}
+}
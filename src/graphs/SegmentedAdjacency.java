@@ -0,0 +1,174 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// Persistent adjacency rows for GraphSnapshot. Vertices are grouped into segments of
+// SEGMENT_SIZE rows; a copy made by edit() shares every segment and row with its original
+// and copies one only before changing it, so a new version costs as much as the change.
+// A row may have spare capacity past the degree of its vertex. Appending writes into that
+// space in place, which is safe because versions with the smaller degree never read it.
+final class SegmentedAdjacency {
+	static final int SHIFT = 10;
+	static final int SEGMENT_SIZE = 1 << SHIFT;
+	static final int MASK = SEGMENT_SIZE - 1;
+	private static final int[] NO_TARGETS = {};
+	private static final double[] NO_WEIGHTS = {};
+
+	// The row of vertex u is targets[u >>> SHIFT][u & MASK], its first degree(u) entries are used
+	private int[][][] targets;
+	private double[][][] weights;
+	private int[][] degrees;
+	// While editing, the segments and rows this copy may change in place; null once sealed
+	private boolean[] isOwnedSegment;
+	private Set<int[]> ownedRows;
+
+	SegmentedAdjacency() {
+		this(new int[0][][], new double[0][][], new int[0][]);
+	}
+
+	private SegmentedAdjacency(int[][][] targets, double[][][] weights, int[][] degrees) {
+		this.targets = targets;
+		this.weights = weights;
+		this.degrees = degrees;
+	}
+
+	int getDegree(int u) {
+		return degrees[u >>> SHIFT][u & MASK];
+	}
+
+	int getTarget(int u, int i) {
+		return targets[u >>> SHIFT][u & MASK][i];
+	}
+
+	double getWeight(int u, int i) {
+		return weights[u >>> SHIFT][u & MASK][i];
+	}
+
+	// Return the position of v in the row of u, or -1 if it is not there
+	int indexOf(int u, int v) {
+		int[] row = targets[u >>> SHIFT][u & MASK];
+		for (int i = 0, degree = getDegree(u); i < degree; i++) {
+			if (row[i] == v) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Return a copy that can be changed without affecting this one
+	SegmentedAdjacency edit() {
+		SegmentedAdjacency copy = new SegmentedAdjacency(targets.clone(), weights.clone(), degrees.clone());
+		copy.isOwnedSegment = new boolean[targets.length];
+		copy.ownedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+		return copy;
+	}
+
+	// Stop editing, after which this copy may be shared
+	void seal() {
+		isOwnedSegment = null;
+		ownedRows = null;
+	}
+
+	// Make room for the rows of vertices 0 .. n - 1
+	void ensureVertices(int n) {
+		int segments = (n + MASK) >>> SHIFT;
+		if (segments <= targets.length) {
+			return;
+		}
+		int old = targets.length;
+		targets = Arrays.copyOf(targets, segments);
+		weights = Arrays.copyOf(weights, segments);
+		degrees = Arrays.copyOf(degrees, segments);
+		isOwnedSegment = Arrays.copyOf(editing(), segments);
+		for (int s = old; s < segments; s++) {
+			targets[s] = new int[SEGMENT_SIZE][];
+			weights[s] = new double[SEGMENT_SIZE][];
+			degrees[s] = new int[SEGMENT_SIZE];
+			Arrays.fill(targets[s], NO_TARGETS);
+			Arrays.fill(weights[s], NO_WEIGHTS);
+			isOwnedSegment[s] = true;
+		}
+	}
+
+	// Append the entry (v, weight) to the row of u
+	void add(int u, int v, double weight) {
+		int s = ownSegment(u);
+		int j = u & MASK;
+		int degree = degrees[s][j];
+		if (degree == targets[s][j].length) {
+			int capacity = Math.max(4, 2 * degree);
+			targets[s][j] = Arrays.copyOf(targets[s][j], capacity);
+			weights[s][j] = Arrays.copyOf(weights[s][j], capacity);
+			ownedRows.add(targets[s][j]);
+		}
+		targets[s][j][degree] = v;
+		weights[s][j][degree] = weight;
+		degrees[s][j] = degree + 1;
+	}
+
+	// Remove the i-th entry of the row of u, keeping the order of the others
+	void removeAt(int u, int i) {
+		int s = ownRow(u);
+		int j = u & MASK;
+		int degree = degrees[s][j];
+		System.arraycopy(targets[s][j], i + 1, targets[s][j], i, degree - i - 1);
+		System.arraycopy(weights[s][j], i + 1, weights[s][j], i, degree - i - 1);
+		degrees[s][j] = degree - 1;
+	}
+
+	// Replace the target of the i-th entry of the row of u
+	void setTarget(int u, int i, int v) {
+		int s = ownRow(u);
+		targets[s][u & MASK][i] = v;
+	}
+
+	// Give the row of from to vertex to and leave from without entries
+	void move(int from, int to) {
+		int s = ownSegment(from);
+		int t = ownSegment(to);
+		targets[t][to & MASK] = targets[s][from & MASK];
+		weights[t][to & MASK] = weights[s][from & MASK];
+		degrees[t][to & MASK] = degrees[s][from & MASK];
+		clear(from);
+	}
+
+	// Remove every entry of the row of u
+	void clear(int u) {
+		int s = ownSegment(u);
+		targets[s][u & MASK] = NO_TARGETS;
+		weights[s][u & MASK] = NO_WEIGHTS;
+		degrees[s][u & MASK] = 0;
+	}
+
+	private boolean[] editing() {
+		if (isOwnedSegment == null) {
+			throw new IllegalStateException("Adjacency is sealed");
+		}
+		return isOwnedSegment;
+	}
+
+	private int ownSegment(int u) {
+		int s = u >>> SHIFT;
+		if (!editing()[s]) {
+			targets[s] = targets[s].clone();
+			weights[s] = weights[s].clone();
+			degrees[s] = degrees[s].clone();
+			isOwnedSegment[s] = true;
+		}
+		return s;
+	}
+
+	private int ownRow(int u) {
+		int s = ownSegment(u);
+		int j = u & MASK;
+		if (!ownedRows.contains(targets[s][j])) {
+			targets[s][j] = targets[s][j].clone();
+			weights[s][j] = weights[s][j].clone();
+			ownedRows.add(targets[s][j]);
+		}
+		return s;
+	}
+}
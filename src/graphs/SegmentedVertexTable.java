@@ -0,0 +1,193 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Persistent vertex list and vertex-to-index map for GraphSnapshot, copied on write in
+// segments like SegmentedAdjacency. The map is a chained hash table whose buckets are small
+// immutable arrays {vertex, index, vertex, index, ...}, so changing a vertex copies one bucket.
+final class SegmentedVertexTable<V> {
+	private static final int SHIFT = SegmentedAdjacency.SHIFT;
+	private static final int MASK = SegmentedAdjacency.MASK;
+	private static final Object[] NO_ENTRIES = {};
+
+	private Object[][] vertices; // vertices[i >>> SHIFT][i & MASK] is vertex i
+	private Object[][][] buckets; // buckets[b >>> SHIFT][b & MASK] is bucket b
+	private int bucketCount;
+	private int size;
+	private boolean[] isOwnedVertexSegment; // While editing, the segments this copy may change; null once sealed
+	private boolean[] isOwnedBucketSegment;
+
+	SegmentedVertexTable() {
+		vertices = new Object[0][];
+		bucketCount = 16;
+		buckets = new Object[][][] {emptyBuckets(bucketCount)};
+	}
+
+	private SegmentedVertexTable(SegmentedVertexTable<V> table) {
+		vertices = table.vertices.clone();
+		buckets = table.buckets.clone();
+		bucketCount = table.bucketCount;
+		size = table.size;
+		isOwnedVertexSegment = new boolean[vertices.length];
+		isOwnedBucketSegment = new boolean[buckets.length];
+	}
+
+	int size() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(int index) {
+		return (V)vertices[index >>> SHIFT][index & MASK];
+	}
+
+	// Return the index of v, or -1 if it is not in the table
+	int indexOf(Object v) {
+		int b = bucketOf(v);
+		Object[] bucket = buckets[b >>> SHIFT][b & MASK];
+		for (int i = 0; i < bucket.length; i += 2) {
+			if (Objects.equals(bucket[i], v)) {
+				return (Integer)bucket[i + 1];
+			}
+		}
+		return -1;
+	}
+
+	// Return a copy that can be changed without affecting this one
+	SegmentedVertexTable<V> edit() {
+		return new SegmentedVertexTable<>(this);
+	}
+
+	// Stop editing, after which this copy may be shared
+	void seal() {
+		isOwnedVertexSegment = null;
+		isOwnedBucketSegment = null;
+	}
+
+	// Append v unless it is in the table; return its index, or -1 if it was already there
+	int add(V v) {
+		editing();
+		if (indexOf(v) != -1) {
+			return -1;
+		}
+		if (size == bucketCount) {
+			rehash(2 * bucketCount);
+		}
+		int index = size;
+		int s = index >>> SHIFT;
+		if (s == vertices.length) {
+			vertices = Arrays.copyOf(vertices, s + 1);
+			vertices[s] = new Object[SegmentedAdjacency.SEGMENT_SIZE];
+			isOwnedVertexSegment = Arrays.copyOf(isOwnedVertexSegment, s + 1);
+			isOwnedVertexSegment[s] = true;
+		}
+		ownVertexSegment(s)[index & MASK] = v;
+		putIndex(v, index);
+		size++;
+		return index;
+	}
+
+	// Remove the vertex at index by moving the last vertex into its place
+	void removeAt(int index) {
+		editing();
+		V v = get(index);
+		int last = size - 1;
+		removeIndex(v);
+		if (index != last) {
+			V moved = get(last);
+			ownVertexSegment(index >>> SHIFT)[index & MASK] = moved;
+			putIndex(moved, index);
+		}
+		ownVertexSegment(last >>> SHIFT)[last & MASK] = null;
+		size--;
+	}
+
+	private boolean[] editing() {
+		if (isOwnedVertexSegment == null) {
+			throw new IllegalStateException("Vertex table is sealed");
+		}
+		return isOwnedVertexSegment;
+	}
+
+	private Object[] ownVertexSegment(int s) {
+		if (!editing()[s]) {
+			vertices[s] = vertices[s].clone();
+			isOwnedVertexSegment[s] = true;
+		}
+		return vertices[s];
+	}
+
+	// Map v to index, replacing its current index if it has one
+	private void putIndex(Object v, int index) {
+		int b = bucketOf(v);
+		Object[] bucket = buckets[b >>> SHIFT][b & MASK];
+		for (int i = 0; i < bucket.length; i += 2) {
+			if (Objects.equals(bucket[i], v)) {
+				bucket = bucket.clone();
+				bucket[i + 1] = index;
+				setBucket(b, bucket);
+				return;
+			}
+		}
+		bucket = Arrays.copyOf(bucket, bucket.length + 2);
+		bucket[bucket.length - 2] = v;
+		bucket[bucket.length - 1] = index;
+		setBucket(b, bucket);
+	}
+
+	private void removeIndex(Object v) {
+		int b = bucketOf(v);
+		Object[] bucket = buckets[b >>> SHIFT][b & MASK];
+		for (int i = 0; i < bucket.length; i += 2) {
+			if (Objects.equals(bucket[i], v)) {
+				Object[] rest = new Object[bucket.length - 2];
+				System.arraycopy(bucket, 0, rest, 0, i);
+				System.arraycopy(bucket, i + 2, rest, i, bucket.length - i - 2);
+				setBucket(b, rest.length == 0 ? NO_ENTRIES : rest);
+				return;
+			}
+		}
+	}
+
+	private void setBucket(int b, Object[] bucket) {
+		int s = b >>> SHIFT;
+		if (!isOwnedBucketSegment[s]) {
+			buckets[s] = buckets[s].clone();
+			isOwnedBucketSegment[s] = true;
+		}
+		buckets[s][b & MASK] = bucket;
+	}
+
+	// Rebuild the map with count buckets; all of its segments are new and owned
+	private void rehash(int count) {
+		int segments = (count + MASK) >>> SHIFT;
+		buckets = new Object[segments][][];
+		for (int s = 0; s < segments; s++) {
+			buckets[s] = emptyBuckets(Math.min(count - (s << SHIFT), SegmentedAdjacency.SEGMENT_SIZE));
+		}
+		bucketCount = count;
+		isOwnedBucketSegment = new boolean[segments];
+		Arrays.fill(isOwnedBucketSegment, true);
+		for (int i = 0; i < size; i++) {
+			V v = get(i);
+			int b = bucketOf(v);
+			Object[] bucket = buckets[b >>> SHIFT][b & MASK];
+			bucket = Arrays.copyOf(bucket, bucket.length + 2);
+			bucket[bucket.length - 2] = v;
+			bucket[bucket.length - 1] = i;
+			buckets[b >>> SHIFT][b & MASK] = bucket;
+		}
+	}
+
+	private int bucketOf(Object v) {
+		int h = Objects.hashCode(v);
+		return (h ^ (h >>> 16)) & (bucketCount - 1);
+	}
+
+	private static Object[][] emptyBuckets(int count) {
+		Object[][] result = new Object[count][];
+		Arrays.fill(result, NO_ENTRIES);
+		return result;
+	}
+}
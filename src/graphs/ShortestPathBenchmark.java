@@ -0,0 +1,91 @@
+package graphs;
+
+import java.util.*;
+
+/*
+ * Compares the heap-based getShortestPath against the original linear-scan
+ * implementation on random sparse graphs of increasing size.
+ *
+ * Usage: ShortestPathBenchmark [averageDegree] [seed]
+ * */
+public class ShortestPathBenchmark {
+	// The linear-scan version is cubic in practice, so stop running it past this size
+	private static final int LINEAR_SCAN_LIMIT = 2000;
+	private static final int[] SIZES = {500, 1000, 2000, 16000, 64000, 256000, 1000000};
+
+	public static void main(String[] args) {
+		int averageDegree = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		System.out.printf("%10s %12s %14s %14s %10s%n", "vertices", "edges", "linear (ms)", "heap (ms)", "speedup");
+		for (int n : SIZES) {
+			WeightedGraph<Integer> graph = randomGraph(n, averageDegree, new Random(seed));
+
+			// Warm up the heap version so the first size is not dominated by JIT
+			graph.getShortestPath(0);
+			long start = System.nanoTime();
+			WeightedGraph<Integer>.ShortestPathTree tree = graph.getShortestPath(0);
+			double heapMillis = (System.nanoTime() - start) / 1e6;
+
+			String linear = "-";
+			String speedup = "-";
+			if (n <= LINEAR_SCAN_LIMIT) {
+				start = System.nanoTime();
+				double[] expected = linearScanCosts(graph, 0);
+				double linearMillis = (System.nanoTime() - start) / 1e6;
+				for (int v = 0; v < n; v++) {
+					if (expected[v] != tree.getCost(v)) {
+						throw new IllegalStateException("Cost mismatch at vertex " + v + ": "
+								+ expected[v] + " != " + tree.getCost(v));
+					}
+				}
+				linear = String.format("%.2f", linearMillis);
+				speedup = String.format("%.1fx", linearMillis / heapMillis);
+			}
+			System.out.printf("%10d %12d %14s %14.2f %10s%n", n, (long)n * averageDegree / 2, linear, heapMillis, speedup);
+		}
+	}
+
+	// Build an undirected graph with n * averageDegree / 2 random edges and weights in [1, 100]
+	private static WeightedGraph<Integer> randomGraph(int n, int averageDegree, Random random) {
+		List<WeightedEdge> edges = new ArrayList<>();
+		for (int i = 1; i < n; i++) {
+			// Connect each vertex to an earlier one so every vertex is reachable from 0
+			edges.add(new WeightedEdge(i, random.nextInt(i), 1 + random.nextInt(100)));
+		}
+		for (long i = n - 1; i < (long)n * averageDegree / 2; i++) {
+			edges.add(new WeightedEdge(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(100)));
+		}
+		return new WeightedGraph<Integer>(edges, n, false);
+	}
+
+	// The original getShortestPath: linear scan for the minimum and List.contains for membership
+	private static double[] linearScanCosts(WeightedGraph<Integer> graph, int sourceVertex) {
+		double[] cost = new double[graph.getSize()];
+		for (int i = 0; i < cost.length; i++) {
+			cost[i] = Double.POSITIVE_INFINITY;
+		}
+		cost[sourceVertex] = 0;
+
+		List<Integer> T = new ArrayList<>();
+		while (T.size() < graph.getSize()) {
+			int u = -1;
+			double currentMinCost = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < graph.getSize(); i++) {
+				if (!T.contains(i) && cost[i] < currentMinCost) {
+					currentMinCost = cost[i];
+					u = i;
+				}
+			}
+
+			if (u == -1) break; else T.add(u);
+
+			for (Edge e : graph.neighbors.get(u)) {
+				if (!T.contains(e.v) && cost[e.v] > cost[u] + ((WeightedEdge)e).weight) {
+					cost[e.v] = cost[u] + ((WeightedEdge)e).weight;
+				}
+			}
+		}
+		return cost;
+	}
+}
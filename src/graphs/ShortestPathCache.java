@@ -0,0 +1,168 @@
+package graphs;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * A bounded cache of the shortest path trees of a graph, for workloads that ask for the same
+ * sources again and again. Entries are keyed by source and graph version: any change to the
+ * graph empties the cache, and a tree computed while the graph changed is never stored, so a
+ * stale tree is never returned. When the cache holds more than maxEntries trees or more than
+ * maxBytes of estimated memory, the least recently used trees are evicted.
+ *
+ * The cache may be shared by threads that query a graph nobody changes concurrently, such
+ * as a CsrGraph or GraphSnapshot. Misses are computed outside the lock. The returned trees
+ * are shared between callers and must not be modified.
+ * */
+public class ShortestPathCache<V> implements GraphListener {
+	// Estimated bytes per vertex of a tree: cost, parent and search order, plus the tree itself
+	private static final int BYTES_PER_VERTEX = 8 + 4 + 4;
+	private static final int BYTES_PER_TREE = 128;
+
+	private final WeightedGraph<V> graph;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final LinkedHashMap<Integer, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true); // In LRU order
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	private static final class Entry<V> {
+		final WeightedGraph<V>.ShortestPathTree tree;
+		final long version;
+		final long bytes;
+
+		Entry(WeightedGraph<V>.ShortestPathTree tree, long version, long bytes) {
+			this.tree = tree;
+			this.version = version;
+			this.bytes = bytes;
+		}
+	}
+
+	// Cache at most maxEntries trees of graph taking at most about maxBytes together
+	public ShortestPathCache(WeightedGraph<V> graph, int maxEntries, long maxBytes) {
+		if (maxEntries < 0 || maxBytes < 0) {
+			throw new IllegalArgumentException("Cache limits must not be negative");
+		}
+		this.graph = graph;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		graph.addGraphListener(this);
+	}
+
+	// Return the shortest path tree from source, computing it if it is not cached
+	public WeightedGraph<V>.ShortestPathTree getShortestPath(int source) {
+		long version = graph.getVersion();
+		synchronized (this) {
+			Entry<V> entry = entries.get(source);
+			if (entry != null && entry.version == version) {
+				hits++;
+				return entry.tree;
+			}
+			misses++;
+		}
+
+		WeightedGraph<V>.ShortestPathTree tree = graph.getShortestPath(source);
+		long treeBytes = BYTES_PER_TREE + (long)BYTES_PER_VERTEX * graph.getSize();
+		synchronized (this) {
+			// Keep the tree only if the graph did not change while it was computed
+			if (graph.getVersion() == version && treeBytes <= maxBytes && maxEntries > 0) {
+				Entry<V> old = entries.put(source, new Entry<>(tree, version, treeBytes));
+				if (old != null) {
+					bytes -= old.bytes;
+				}
+				bytes += treeBytes;
+				evict();
+			}
+		}
+		return tree;
+	}
+
+	// Remove the least recently used trees until the cache is within its limits
+	private void evict() {
+		Iterator<Map.Entry<Integer, Entry<V>>> iterator = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+			bytes -= iterator.next().getValue().bytes;
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	// Remove every cached tree
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	// Stop following the changes of the graph. Entries stay keyed by version, so none goes stale.
+	public void detach() {
+		graph.removeGraphListener(this);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	// Return the estimated memory taken by the cached trees
+	public synchronized long getEstimatedBytes() {
+		return bytes;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	// Return the share of lookups answered from the cache
+	public synchronized double getHitRate() {
+		return hits + misses == 0 ? 0 : (double)hits / (hits + misses);
+	}
+
+	// Return the number of trees removed to stay within the limits
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	// Return the number of times a change to the graph emptied the cache
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	private synchronized void invalidate() {
+		if (!entries.isEmpty()) {
+			invalidations++;
+			clear();
+		}
+	}
+
+	@Override
+	public void edgeAdded(int u, int v, double weight) {
+		invalidate();
+	}
+
+	@Override
+	public void edgeRemoved(int u, int v, double weight) {
+		invalidate();
+	}
+
+	@Override
+	public void weightChanged(int u, int v, double oldWeight, double newWeight) {
+		invalidate();
+	}
+
+	@Override
+	public void vertexAdded(int v) {
+		invalidate();
+	}
+
+	@Override
+	public void verticesRemoved() {
+		invalidate();
+	}
+}
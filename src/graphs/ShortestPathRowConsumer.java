@@ -0,0 +1,10 @@
+package graphs;
+
+// Receives the shortest paths from one source: cost[v] and parent[v] for every vertex v, as in
+// a ShortestPathTree. The arrays are only valid until accept returns and are reused after that,
+// so copy what must be kept, and do not hand them to other threads or tasks. accept is called
+// from several threads at once.
+@FunctionalInterface
+public interface ShortestPathRowConsumer {
+	public void accept(int source, double[] cost, int[] parent);
+}
@@ -0,0 +1,102 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Helpers for MST strategies that select a set of edges rather than growing a rooted tree
+final class SpanningForest {
+	private SpanningForest() {
+	}
+	
+	// Collect the edges of graph, keeping one direction of each undirected edge and dropping self-loops
+	static WeightedEdge[] collectEdges(WeightedGraph<?> graph) {
+		int count = 0;
+		for (int u = 0; u < graph.getSize(); u++) {
+			for (int i = 0; i < graph.getDegree(u); i++) {
+				if (keep(graph, u, graph.getNeighbor(u, i))) {
+					count++;
+				}
+			}
+		}
+		WeightedEdge[] edges = new WeightedEdge[count];
+		count = 0;
+		for (int u = 0; u < graph.getSize(); u++) {
+			for (int i = 0; i < graph.getDegree(u); i++) {
+				if (keep(graph, u, graph.getNeighbor(u, i))) {
+					edges[count++] = graph.getWeightedEdge(u, i);
+				}
+			}
+		}
+		return edges;
+	}
+	
+	private static boolean keep(WeightedGraph<?> graph, int u, int v) {
+		return u != v && (graph.isDirected || u < v);
+	}
+	
+	// Turn the selected forest edges into an MST rooted at startingVertex by walking the forest
+	// breadth-first. Other trees are only included (rooted at their lowest vertex) when spanForest is set.
+	static <V> WeightedGraph<V>.MST toMST(WeightedGraph<V> graph, int startingVertex, boolean spanForest,
+			WeightedEdge[] selected, int count) {
+		int n = graph.getSize();
+		
+		// Adjacency of the forest in compressed form: the edges of vertex u are offsets[u] .. offsets[u + 1] - 1
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < count; i++) {
+			offsets[selected[i].u + 1]++;
+			offsets[selected[i].v + 1]++;
+		}
+		for (int u = 0; u < n; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+		int[] next = Arrays.copyOf(offsets, n);
+		int[] targets = new int[2 * count];
+		double[] weights = new double[2 * count];
+		for (int i = 0; i < count; i++) {
+			WeightedEdge e = selected[i];
+			targets[next[e.u]] = e.v;
+			weights[next[e.u]++] = e.weight;
+			targets[next[e.v]] = e.u;
+			weights[next[e.v]++] = e.weight;
+		}
+		
+		int[] parent = new int[n];
+		Arrays.fill(parent, -1);
+		boolean[] isVisited = new boolean[n];
+		int[] queue = new int[n];
+		IntList searchOrder = new IntList();
+		
+		double totalWeight = walk(startingVertex, offsets, targets, weights, parent, isVisited, queue, searchOrder);
+		if (spanForest) {
+			for (int root = 0; root < n; root++) {
+				if (!isVisited[root]) {
+					totalWeight += walk(root, offsets, targets, weights, parent, isVisited, queue, searchOrder);
+				}
+			}
+		}
+		return graph.new MST(startingVertex, parent, searchOrder, totalWeight);
+	}
+	
+	// Breadth-first walk of the tree that holds root, setting parents; return the tree weight
+	private static double walk(int root, int[] offsets, int[] targets, double[] weights, int[] parent,
+			boolean[] isVisited, int[] queue, IntList searchOrder) {
+		double totalWeight = 0;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = root;
+		isVisited[root] = true;
+		while (head < tail) {
+			int u = queue[head++];
+			searchOrder.addInt(u);
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int w = targets[i];
+				if (!isVisited[w]) {
+					isVisited[w] = true;
+					parent[w] = u;
+					totalWeight += weights[i];
+					queue[tail++] = w;
+				}
+			}
+		}
+		return totalWeight;
+	}
+}
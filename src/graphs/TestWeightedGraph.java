@@ -37,7 +37,18 @@ public class TestWeightedGraph {
 //		System.out.println();
 //		System.out.println("The mst cost is: " + mst.getTotalWeight());
 //		System.out.println();
-//		mst.printTree(); 
+//		mst.printTree();
+
+		// Degree-constrained MSTs of random graphs with 100 nodes, k between 4 and 6
+		for (int numEdges : new int[] {150, 300, 1000}) {
+			WeightedGraph<Integer> graph = GraphGenerators.erdosRenyi(100, numEdges, numEdges).buildWeightedGraph();
+			System.out.println();
+			System.out.println("Random graph with " + numEdges + " edges, mst cost: " + graph.getMinimumSpanningForest().getTotalWeight());
+			for (int k = 4; k <= 6; k++) {
+				WeightedGraph<Integer>.MST mst = graph.getDegreeConstrainedSpanningTree(k, 100);
+				System.out.println("k = " + k + ", degree-constrained mst cost: " + mst.getTotalWeight());
+			}
+		}
 	}
 	
 	
@@ -57,31 +68,10 @@ public class TestWeightedGraph {
 	
 	
 	
-//	create method that generates a random graph
-//	accepts: number of vertices, degree constraint min & max
-//	public static WeightedGraph<Integer> RNGgraph(int numVertices, int minK, int maxK) {
-//		List<WeightedEdge> edges = new ArrayList<>();
-//		// Iterate to the number of Vertices
-//		for (int i = 0; i < numVertices; i++) {
-//			// iterate up to the random constraint (between 4 and 6)
-//			// Random constraint k (between 4 - 6)
-//			int randK = ThreadLocalRandom.current().nextInt(minK, maxK + 1); 
-//			int verticeCount = 0;
-//			for (int j = 0; j < randK; j++) {
-//				// Gives a random vertice between 0 & numVertices
-//				int randVertice = ThreadLocalRandom.current().nextInt(0, numVertices);
-//				// Gives a random weight between 0 and 10
-//				int randWeight = ThreadLocalRandom.current().nextInt(0, 11);
-//				if (j > 0 && (edges.get(i).v == numVertices)) {
-//					verticeCount++;
-//				}
-//				if (verticeCount < randK) {
-//					edges.add(new WeightedEdge(i, randVertice, randWeight));
-//				}
-//			}
-//		}
-//
-//		return new WeightedGraph<Integer>(edges, numVertices, false);
-//	}
+	// Random graph where every vertex has between minK and maxK neighbors
+	public static WeightedGraph<Integer> RNGgraph(int numVertices, int minK, int maxK) {
+		long seed = ThreadLocalRandom.current().nextLong();
+		return GraphGenerators.boundedDegree(numVertices, minK, maxK, seed).buildWeightedGraph();
+	}
 
 }
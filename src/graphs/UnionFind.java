@@ -0,0 +1,82 @@
+package graphs;
+
+import java.util.Arrays;
+
+// Disjoint sets over the elements 0 .. n - 1 with union by size and path halving
+public class UnionFind {
+	private int[] parent;
+	private int[] size;
+	private int count; // Number of disjoint sets
+	private int numberOfElements;
+	
+	public UnionFind(int n) {
+		parent = new int[n];
+		size = new int[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		count = n;
+		numberOfElements = n;
+	}
+	
+	// Add the element getNumberOfElements() as a set of its own and return it
+	public int add() {
+		int x = numberOfElements;
+		if (x == parent.length) {
+			parent = Arrays.copyOf(parent, Math.max(2 * x, 16));
+			size = Arrays.copyOf(size, parent.length);
+		}
+		parent[x] = x;
+		size[x] = 1;
+		numberOfElements++;
+		count++;
+		return x;
+	}
+	
+	// Return the number of elements
+	public int getNumberOfElements() {
+		return numberOfElements;
+	}
+	
+	// Return the representative of the set that holds x
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]]; // Path halving
+			x = parent[x];
+		}
+		return x;
+	}
+	
+	// Merge the sets that hold x and y, return false if they were already joined
+	public boolean union(int x, int y) {
+		int rootX = find(x);
+		int rootY = find(y);
+		if (rootX == rootY) {
+			return false;
+		}
+		if (size[rootX] < size[rootY]) {
+			int temp = rootX;
+			rootX = rootY;
+			rootY = temp;
+		}
+		parent[rootY] = rootX;
+		size[rootX] += size[rootY];
+		count--;
+		return true;
+	}
+	
+	public boolean connected(int x, int y) {
+		return find(x) == find(y);
+	}
+	
+	// Return the number of disjoint sets
+	public int getCount() {
+		return count;
+	}
+	
+	// Return the number of elements in the set that holds x
+	public int getSize(int x) {
+		return size[find(x)];
+	}
+}
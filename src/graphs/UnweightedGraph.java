@@ -1,14 +1,23 @@
 package graphs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public class UnweightedGraph<V> implements Graph<V> {
 	protected List<V> vertices = new ArrayList<>(); // Store vertices
 	protected List<List<Edge>> neighbors = new ArrayList<>(); // Adjacency Edge lists
+	protected VertexIndex<V> vertexIndex = new VertexIndex<>(); // Index of each vertex in vertices
+	protected EdgeIndex edgeIndex = new EdgeIndex(); // Every edge in neighbors, keyed by (u, v)
+	// For directed graphs, incoming.get(v) holds the edges (u, v) of every u; the Edge objects are
+	// shared with neighbors. Undirected graphs store both directions in neighbors instead.
+	protected List<List<Edge>> incoming = new ArrayList<>();
 	protected boolean isDirected;
+	protected long version; // Incremented by every change
+	private List<GraphListener> listeners; // Created by the first addGraphListener
 	// no-arg constructor
 	protected UnweightedGraph() {
 		
@@ -16,6 +25,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	
 	protected UnweightedGraph(V[] vertices, int[][] edges, boolean isDirected) {
 		this.isDirected = isDirected;
+		vertexIndex.ensureCapacity(vertices.length);
 		for (int i = 0; i < vertices.length; i++) {
 			addVertex(vertices[i]);
 		}
@@ -25,6 +35,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	// Construct a graph from vertices and edges stored in List
 	protected UnweightedGraph(List<V> vertices, List<Edge> edges, boolean isDirected) {
 		this.isDirected = isDirected;
+		vertexIndex.ensureCapacity(vertices.size());
 		for (int i = 0; i < vertices.size(); i++) {
 			addVertex(vertices.get(i));
 		}
@@ -34,6 +45,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	// Construct a graph from integer vertices(0, 1, 2, ...) and edge list
 	protected UnweightedGraph(List<Edge> edges, int numberOfVertices, boolean isDirected) {
 		this.isDirected = isDirected;
+		vertexIndex.ensureCapacity(numberOfVertices);
 		for (int i = 0; i < numberOfVertices; i++) {
 			addVertex((V)(Integer.valueOf(i)));
 		}
@@ -42,6 +54,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	
 	protected UnweightedGraph(int[][] edges, int numberOfVertices, boolean isDirected) {
 		this.isDirected = isDirected;
+		vertexIndex.ensureCapacity(numberOfVertices);
 		for (int i = 0; i < numberOfVertices; i++) {
 			addVertex((V)(Integer.valueOf(i)));
 		}
@@ -50,6 +63,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	
 	// Create adjacency lists for each vertex
 	public void createAdjacencyLists(int[][] edges, int numberOfVertices, boolean isDirected) {
+		edgeIndex.ensureCapacity(edgeIndex.size() + 2 * edges.length);
 		for (int i = 0; i < edges.length; i++) {
 			addEdge(edges[i][0], edges[i][1]);
 			if (isDirected != true) {
@@ -60,6 +74,7 @@ public class UnweightedGraph<V> implements Graph<V> {
 	
 	// Create adjacency lists for each vertex
 	public void createAdjacencyLists(List<Edge> edges, int numberOfVertices, boolean isDirected) {
+		edgeIndex.ensureCapacity(edgeIndex.size() + 2 * edges.size());
 		for (Edge edge: edges) {
 			addEdge(edge.u, edge.v);
 			if (isDirected != true) {
@@ -84,15 +99,18 @@ public class UnweightedGraph<V> implements Graph<V> {
 
 	@Override
 	public int getIndex(V v) {
-		return vertices.indexOf(v);
+		return vertexIndex.get(v);
 	}
 
 	@Override
 	public List<Integer> getNeighbors(int index) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
 		List<Integer> result = new ArrayList<>();
 		for (Edge e: neighbors.get(index)) {
 			result.add(e.v);
 		}
+		GraphMetrics.record(GraphMetrics.Algorithm.NEIGHBORS, start, allocated, 0, result.size(), 0, 0);
 		return result;
 	}
 
@@ -100,6 +118,18 @@ public class UnweightedGraph<V> implements Graph<V> {
 	public int getDegree(int v) {
 		return neighbors.get(v).size();
 	}
+	
+	@Override
+	public int getNeighbor(int u, int i) {
+		return neighbors.get(u).get(i).v;
+	}
+	
+	@Override
+	public void forEachNeighbor(int index, IntConsumer action) {
+		for (Edge e : neighbors.get(index)) {
+			action.accept(e.v);
+		}
+	}
 
 	@Override
 	public void printEdges() {
@@ -116,14 +146,26 @@ public class UnweightedGraph<V> implements Graph<V> {
 	public void clear() {
 		vertices.clear();
 		neighbors.clear();
-		
+		vertexIndex.clear();
+		edgeIndex.clear();
+		incoming.clear();
+		verticesRemoved();
 	}
 
 	@Override // Add a vertex to the graph
 	public boolean addVertex(V vertex) {
-		if (!vertices.contains(vertex)) {
+		if (vertexIndex.add(vertex, vertices.size())) {
 			vertices.add(vertex);
 			neighbors.add(new ArrayList<Edge>());
+			if (isDirected) {
+				incoming.add(new ArrayList<Edge>());
+			}
+			version++;
+			if (listeners != null) {
+				for (GraphListener listener : listeners) {
+					listener.vertexAdded(vertices.size() - 1);
+				}
+			}
 			return true;
 		} else {
 			return false;
@@ -143,21 +185,100 @@ public class UnweightedGraph<V> implements Graph<V> {
 		if (e.v < 0 || e.v > getSize() - 1) {
 			throw new IllegalArgumentException("No such index: " + e.v);
 		}
-		if (!neighbors.get(e.u).contains(e)) {
-			neighbors.get(e.u).add(e);
-			if (isDirected != true) {
-				neighbors.get(e.v).add(e);
+		if (!edgeIndex.contains(e.u, e.v)) {
+			link(e);
+			// An undirected edge is also stored as (v, u) in the list of v
+			if (isDirected != true && !edgeIndex.contains(e.v, e.u)) {
+				link(e.reverse());
+			}
+			version++;
+			if (listeners != null) {
+				for (GraphListener listener : listeners) {
+					listener.edgeAdded(e.u, e.v, weightOf(e));
+				}
 			}
 			return true;
 		} else {
 			return false;
 		}
 	}
+	
+	@Override
+	public boolean hasEdge(int u, int v) {
+		return edgeIndex.contains(u, v);
+	}
+	
+	// Return a number that changes whenever the graph changes, so results computed from the
+	// graph can tell whether they are stale
+	public long getVersion() {
+		return version;
+	}
+	
+	// Notify listener of every later change to this graph
+	public void addGraphListener(GraphListener listener) {
+		if (listeners == null) {
+			listeners = new ArrayList<>();
+		}
+		listeners.add(listener);
+	}
+	
+	public void removeGraphListener(GraphListener listener) {
+		if (listeners != null) {
+			listeners.remove(listener);
+		}
+	}
+	
+	// Record a change that removed vertices and notify the listeners
+	private void verticesRemoved() {
+		version++;
+		if (listeners != null) {
+			for (GraphListener listener : listeners) {
+				listener.verticesRemoved();
+			}
+		}
+	}
+	
+	// Record the removal of edge e and notify the listeners
+	private void edgeRemoved(Edge e) {
+		version++;
+		if (listeners != null) {
+			for (GraphListener listener : listeners) {
+				listener.edgeRemoved(e.u, e.v, weightOf(e));
+			}
+		}
+	}
+	
+	// Record the change of the weight of edge e and notify the listeners
+	void weightChanged(Edge e, double oldWeight) {
+		version++;
+		if (listeners != null) {
+			for (GraphListener listener : listeners) {
+				listener.weightChanged(e.u, e.v, oldWeight, weightOf(e));
+			}
+		}
+	}
+	
+	static double weightOf(Edge e) {
+		return e instanceof WeightedEdge ? ((WeightedEdge)e).weight : 1;
+	}
 
+	// Return an immutable compressed sparse row snapshot of this graph
+	public CsrGraph<V> freeze() {
+		return new CsrGraph<>(this);
+	}
+	
 	// Obtain a DFS tree starting from vertex v
 	@Override
 	public SearchTree dfs(int v) {
-		List<Integer> searchOrder = new ArrayList<>();
+		return dfs(v, null);
+	}
+	
+	// Obtain a DFS tree starting from vertex v, passing each vertex to finishAction (if not null)
+	// once all of its descendants are searched, i.e. in post-order
+	public SearchTree dfs(int v, IntConsumer finishAction) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		IntList searchOrder = new IntList();
 		int[] parent = new int[vertices.size()];
 		for (int i = 0; i < parent.length; i++) {
 			parent[i] = -1;
@@ -166,53 +287,128 @@ public class UnweightedGraph<V> implements Graph<V> {
 		// Mark visited vertices
 		boolean[] isVisited = new boolean[vertices.size()];
 		
-		// Recursively search
-		dfs(v, parent, searchOrder, isVisited);
+		// Search with an explicit stack instead of recursion, so deep graphs cannot overflow
+		long scanned = dfs(v, parent, searchOrder, isVisited, finishAction);
 		
+		GraphMetrics.record(GraphMetrics.Algorithm.DFS, start, allocated, searchOrder.size(), scanned, 0, 0);
 		return new SearchTree(v, parent, searchOrder);
 	}
 	
-	private void dfs(int v, int[] parent, List<Integer> searchOrder, boolean[] isVisited) {
-		// Store the visited vertex
-		searchOrder.add(v);
+	// Return the number of edges scanned
+	private long dfs(int v, int[] parent, IntList searchOrder, boolean[] isVisited, IntConsumer finishAction) {
+		// stack[top] is the vertex being searched, next[top] the position of its next neighbor.
+		// The stack holds one path from v, so it never grows beyond the number of vertices.
+		int[] stack = new int[Math.min(vertices.size(), 1024)];
+		int[] next = new int[stack.length];
+		int top = 0;
+		stack[0] = v;
+		searchOrder.addInt(v); // Store the visited vertex
 		isVisited[v] = true; // Vertex v is visited
+		long scanned = 0;
 		
-		for (Edge e : neighbors.get(v)) {
-			// e.u is v
-			int w = e.v; // e.v is w
-			if (!isVisited[w]) {
-				parent[w] = v; // The parent of vertex w is v
-				dfs(w, parent, searchOrder, isVisited); // Recursive Search
+		while (top >= 0) {
+			int u = stack[top];
+			int degree = getDegree(u);
+			int i = next[top];
+			while (i < degree && isVisited[getNeighbor(u, i)]) {
+				i++;
+			}
+			
+			if (i == degree) {
+				// All neighbors of u are searched, backtrack
+				if (finishAction != null) {
+					finishAction.accept(u);
+				}
+				scanned += degree;
+				top--;
+			} else {
+				int w = getNeighbor(u, i);
+				next[top] = i + 1;
+				parent[w] = u; // The parent of vertex w is u
+				searchOrder.addInt(w);
+				isVisited[w] = true;
+				
+				if (++top == stack.length) {
+					int length = (int)Math.min((long)stack.length * 2, vertices.size());
+					stack = Arrays.copyOf(stack, length);
+					next = Arrays.copyOf(next, length);
+				}
+				stack[top] = w; // Search w next
+				next[top] = 0;
 			}
 		}
+		return scanned;
 	}
 	
 	@Override // Starting bfs search from vertex v
 	public SearchTree bfs(int v) {
-		List<Integer> searchOrder = new ArrayList<>();
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		IntList searchOrder = new IntList();
 		int[] parent = new int[vertices.size()];
 		for (int i = 0; i < parent.length; i++) {
 			parent[i] = -1; // Initialize parent[i] to -1
 		}
+		
+		// Array used as a queue, every vertex is enqueued at most once
+		int[] queue = new int[vertices.size()];
+		int head = 0;
+		int tail = 0;
+		boolean[] isVisited = new boolean[vertices.size()];
+		queue[tail++] = v; // Enqueue v
+		isVisited[v] = true; // Mark as visited
+		long scanned = 0;
+		
+		while (head < tail) {
+			int u = queue[head++]; // Dequeue to u
+			searchOrder.addInt(u); // u searched
+			int degree = getDegree(u);
+			scanned += degree;
+			for (int i = 0; i < degree; i++) {
+				int w = getNeighbor(u, i);
+				if (!isVisited[w]) {
+					queue[tail++] = w; // Enqueue w
+					parent[w] = u; // The parent of w is u
+					isVisited[w] = true; // Mark it visited
+				}
+			}
+		}
+		GraphMetrics.record(GraphMetrics.Algorithm.BFS, start, allocated, tail, scanned, 0, 0);
+		return new SearchTree(v, parent, searchOrder);
+	}
+	
+	// Obtain a breadth-first search tree using all cores, see ParallelBfs
+	public SearchTree parallelBfs(int v) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		SearchTree tree = ParallelBfs.search(this, v);
+		GraphMetrics.record(GraphMetrics.Algorithm.PARALLEL_BFS, start, allocated, tree.getNumberOfVerticesFound(), 0, 0, 0);
+		return tree;
+	}
+	
+	// Return a graph whose neighbors are the incoming neighbors of this graph, or null if there
+	// is no cheap way to enumerate incoming edges
+	UnweightedGraph<V> getIncomingGraph() {
+		if (!isDirected) {
+			return this;
+		}
+		// A view whose neighbors come from the incoming lists
+		return new UnweightedGraph<V>() {
+			@Override
+			public int getSize() {
+				return UnweightedGraph.this.getSize();
+			}
 			
-			LinkedList<Integer> queue = new LinkedList<>(); // List used as a queue
-			boolean[] isVisited = new boolean[vertices.size()];
-			queue.offer(v); // Enqueue v
-			isVisited[v] = true; // Mark as visited
+			@Override
+			public int getDegree(int v) {
+				return UnweightedGraph.this.incoming.get(v).size();
+			}
 			
-			while(!queue.isEmpty()) {
-				int u = queue.poll(); // Dequeue to u
-				searchOrder.add(u); // u searched
-				for (Edge e : neighbors.get(u)) {
-					int w = e.v;
-					if (!isVisited[w]) {
-						queue.offer(w); // Enqueue w
-						parent[w] = u; // The parent of w is u
-						isVisited[w] = true; // Mark it visited
-					}
-				}
+			@Override
+			public int getNeighbor(int u, int i) {
+				return UnweightedGraph.this.incoming.get(u).get(i).u;
 			}
-			return new SearchTree(v, parent, searchOrder);
+		};
 	}
 	
 	public class SearchTree {
@@ -283,21 +479,246 @@ public class UnweightedGraph<V> implements Graph<V> {
 	}
 	
 	@Override
-	// Removes vertex as well as edges associated with vertex
+	// Removes vertex as well as edges associated with vertex. The last vertex takes over the
+	// index of the removed one, so only the edges of these two vertices are rewritten.
 	public boolean remove(V v) {
-		if (vertices.contains(v)) {
-			neighbors.remove(vertices.indexOf(v));
-			vertices.remove(v);
-			return true;
-		} else {
+		int index = vertexIndex.get(v);
+		if (index == -1) {
 			return false;
 		}
+		
+		// Remove the edges into and out of index from the lists of the other endpoints
+		for (Edge e : neighbors.get(index)) {
+			if (e.v == index) {
+				edgeIndex.remove(e.u, e.v);
+			} else if (isDirected) {
+				removeAt(incoming.get(e.v), edgeIndex.incomingPosition(e.u, e.v), true);
+				edgeIndex.remove(e.u, e.v);
+			} else {
+				edgeIndex.remove(e.u, e.v);
+				unlink(e.v, index);
+			}
+		}
+		if (isDirected) {
+			for (Edge e : incoming.get(index)) {
+				if (e.u != index) {
+					removeAt(neighbors.get(e.u), edgeIndex.position(e.u, e.v), false);
+					edgeIndex.remove(e.u, e.v);
+				}
+			}
+		}
+		
+		int last = vertices.size() - 1;
+		if (index != last) {
+			moveLastVertex(index);
+		}
+		vertices.remove(last);
+		neighbors.remove(last);
+		if (isDirected) {
+			incoming.remove(last);
+		}
+		vertexIndex.remove(v);
+		verticesRemoved();
+		return true;
 	}
-
+	
+	// Move the last vertex into the slot of index, whose edges are already removed. The edges of
+	// last are replaced by renumbered copies rather than changed, since the stored edges may be
+	// the caller's own (see addEdge(Edge)).
+	private void moveLastVertex(int index) {
+		int last = vertices.size() - 1;
+		
+		// Collect every edge with last as an endpoint, each once
+		List<Edge> edges = new ArrayList<>();
+		for (Edge e : neighbors.get(last)) {
+			edges.add(e);
+			if (!isDirected && e.v != last) {
+				edges.add(edgeIndex.get(e.v, last));
+			}
+		}
+		if (isDirected) {
+			for (Edge e : incoming.get(last)) {
+				if (e.u != last) {
+					edges.add(e);
+				}
+			}
+		}
+		// Each copy takes the place of its edge in the lists, the lists of last included
+		for (Edge e : edges) {
+			replace(e, moveEndpoint(e, last, index));
+		}
+		
+		V vertex = vertices.get(last);
+		vertices.set(index, vertex);
+		neighbors.set(index, neighbors.get(last));
+		if (isDirected) {
+			incoming.set(index, incoming.get(last));
+		}
+		vertexIndex.set(vertex, index);
+	}
+	
+	// Return a copy of e with endpoint from replaced by to
+	private static Edge moveEndpoint(Edge e, int from, int to) {
+		return renumber(e, e.u == from ? to : e.u, e.v == from ? to : e.v);
+	}
+	
+	// Return a copy of e, with its weight if it has one, from u to v
+	private static Edge renumber(Edge e, int u, int v) {
+		return e instanceof WeightedEdge ? new WeightedEdge(u, v, ((WeightedEdge)e).weight) : new Edge(u, v);
+	}
+	
+	// Append e to the neighbor list of e.u, and for directed graphs to the incoming list of
+	// e.v, and index it with its positions
+	void link(Edge e) {
+		List<Edge> list = neighbors.get(e.u);
+		list.add(e);
+		int incomingPosition = -1;
+		if (isDirected) {
+			List<Edge> into = incoming.get(e.v);
+			into.add(e);
+			incomingPosition = into.size() - 1;
+		}
+		edgeIndex.put(e, list.size() - 1, incomingPosition);
+	}
+	
+	// Remove the edge (u, v) from the edge index, the neighbor list of u and for directed graphs
+	// the incoming list of v, in constant time; return it, or null if there is none
+	private Edge unlink(int u, int v) {
+		int position = edgeIndex.position(u, v);
+		if (position == -1) {
+			return null;
+		}
+		int incomingPosition = edgeIndex.incomingPosition(u, v);
+		Edge e = edgeIndex.remove(u, v);
+		removeAt(neighbors.get(u), position, false);
+		if (isDirected) {
+			removeAt(incoming.get(v), incomingPosition, true);
+		}
+		return e;
+	}
+	
+	// Remove the edge at position from list by moving the last edge of the list into its place,
+	// which changes the order of the list
+	private void removeAt(List<Edge> list, int position, boolean isIncoming) {
+		Edge moved = list.remove(list.size() - 1);
+		if (position < list.size()) {
+			list.set(position, moved);
+			if (isIncoming) {
+				edgeIndex.setIncomingPosition(moved.u, moved.v, position);
+			} else {
+				edgeIndex.setPosition(moved.u, moved.v, position);
+			}
+		}
+	}
+	
+	// Put replacement in the place of e, which is in the graph, in its lists and the edge index
+	void replace(Edge e, Edge replacement) {
+		int position = edgeIndex.position(e.u, e.v);
+		int incomingPosition = edgeIndex.incomingPosition(e.u, e.v);
+		if (e.u != replacement.u || e.v != replacement.v) {
+			edgeIndex.remove(e.u, e.v);
+		}
+		edgeIndex.put(replacement, position, incomingPosition);
+		neighbors.get(e.u).set(position, replacement);
+		if (isDirected) {
+			incoming.get(e.v).set(incomingPosition, replacement);
+		}
+	}
+	
+	// Remove the given vertices and their edges in one pass over the graph. Unlike remove(V),
+	// the remaining vertices keep their relative order; return the number of vertices removed.
+	public int removeVertices(Collection<V> toRemove) {
+		boolean[] isRemoved = new boolean[vertices.size()];
+		int count = 0;
+		for (V v : toRemove) {
+			int index = vertexIndex.get(v);
+			if (index != -1 && !isRemoved[index]) {
+				isRemoved[index] = true;
+				count++;
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		
+		// newIndex[u] is the index of u after compaction
+		int[] newIndex = new int[vertices.size()];
+		int next = 0;
+		for (int u = 0; u < vertices.size(); u++) {
+			newIndex[u] = isRemoved[u] ? -1 : next++;
+		}
+		
+		// The surviving edges are replaced by renumbered copies rather than changed, since the
+		// stored edges may be the caller's own (see addEdge(Edge)); each appears once in the
+		// neighbor lists, and the incoming lists are rebuilt from the copies
+		List<V> newVertices = new ArrayList<>(next);
+		List<List<Edge>> newNeighbors = new ArrayList<>(next);
+		List<List<Edge>> newIncoming = new ArrayList<>(isDirected ? next : 0);
+		edgeIndex.clear();
+		vertexIndex.clear();
+		for (int u = 0; u < vertices.size(); u++) {
+			if (!isRemoved[u]) {
+				vertexIndex.set(vertices.get(u), newVertices.size());
+				newVertices.add(vertices.get(u));
+				List<Edge> list = new ArrayList<>(neighbors.get(u).size());
+				for (Edge e : neighbors.get(u)) {
+					if (!isRemoved[e.v]) {
+						Edge copy = renumber(e, newIndex[e.u], newIndex[e.v]);
+						list.add(copy);
+						edgeIndex.put(copy, list.size() - 1, -1);
+					}
+				}
+				newNeighbors.add(list);
+				if (isDirected) {
+					newIncoming.add(new ArrayList<>(incoming.get(u).size()));
+				}
+			}
+		}
+		if (isDirected) {
+			for (List<Edge> list : newNeighbors) {
+				for (Edge e : list) {
+					List<Edge> into = newIncoming.get(e.v);
+					into.add(e);
+					edgeIndex.setIncomingPosition(e.u, e.v, into.size() - 1);
+				}
+			}
+		}
+		vertices = newVertices;
+		neighbors = newNeighbors;
+		incoming = newIncoming;
+		verticesRemoved();
+		return count;
+	}
+	
 	@Override
 	public boolean remove(int u, int v) {
-		// TODO Auto-generated method stub
-		return false;
+		Edge e = unlink(u, v);
+		if (e == null) {
+			return false;
+		}
+		if (!isDirected && u != v) {
+			unlink(v, u);
+		}
+		edgeRemoved(e);
+		return true;
+	}
+	
+	// Remove the edges (us[i], vs[i]), each in constant time; return the number of edges removed
+	public int removeEdges(int[] us, int[] vs) {
+		List<Edge> removed = new ArrayList<>(); // The removed edges as the caller named them
+		for (int i = 0; i < us.length; i++) {
+			Edge e = unlink(us[i], vs[i]);
+			if (e != null) {
+				removed.add(e);
+				if (!isDirected && e.u != e.v) {
+					unlink(e.v, e.u);
+				}
+			}
+		}
+		for (Edge e : removed) {
+			edgeRemoved(e);
+		}
+		return removed.size();
 	}
 
 }
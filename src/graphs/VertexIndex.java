@@ -0,0 +1,94 @@
+package graphs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps vertex objects to their index in a graph's vertex list in constant time.
+// Integer and Long vertices are kept in primitive maps so they are never boxed again.
+public class VertexIndex<V> {
+	private LongIntHashMap intVertices; // Integer vertices, created on first use
+	private LongIntHashMap longVertices; // Long vertices, created on first use
+	private Map<V, Integer> otherVertices; // All other vertices, created on first use
+	private int expectedSize = 16;
+	
+	public VertexIndex() {
+	}
+	
+	public VertexIndex(int expectedSize) {
+		this.expectedSize = expectedSize;
+	}
+	
+	// Return the index of vertex v, or -1 if v is not indexed
+	public int get(V v) {
+		if (v instanceof Integer) {
+			return intVertices == null ? -1 : intVertices.get((Integer)v);
+		} else if (v instanceof Long) {
+			return longVertices == null ? -1 : longVertices.get((Long)v);
+		} else {
+			Integer index = otherVertices == null ? null : otherVertices.get(v);
+			return index == null ? -1 : index;
+		}
+	}
+	
+	public boolean contains(V v) {
+		return get(v) != -1;
+	}
+	
+	// Index v at index unless it is already indexed, return true if it was added
+	public boolean add(V v, int index) {
+		if (contains(v)) {
+			return false;
+		}
+		set(v, index);
+		return true;
+	}
+	
+	// Index v at index, replacing any previous index
+	public void set(V v, int index) {
+		if (v instanceof Integer) {
+			if (intVertices == null) {
+				intVertices = new LongIntHashMap(expectedSize);
+			}
+			intVertices.put((Integer)v, index);
+		} else if (v instanceof Long) {
+			if (longVertices == null) {
+				longVertices = new LongIntHashMap(expectedSize);
+			}
+			longVertices.put((Long)v, index);
+		} else {
+			if (otherVertices == null) {
+				otherVertices = new HashMap<>(expectedSize * 2);
+			}
+			otherVertices.put(v, index);
+		}
+	}
+	
+	// Remove v, return its index or -1 if it was not indexed
+	public int remove(V v) {
+		if (v instanceof Integer) {
+			return intVertices == null ? -1 : intVertices.remove((Integer)v);
+		} else if (v instanceof Long) {
+			return longVertices == null ? -1 : longVertices.remove((Long)v);
+		} else {
+			Integer index = otherVertices == null ? null : otherVertices.remove(v);
+			return index == null ? -1 : index;
+		}
+	}
+	
+	// Prepare for n vertices without rehashing
+	public void ensureCapacity(int n) {
+		expectedSize = Math.max(expectedSize, n);
+		if (intVertices != null) {
+			intVertices.ensureCapacity(n);
+		}
+		if (longVertices != null) {
+			longVertices.ensureCapacity(n);
+		}
+	}
+	
+	public void clear() {
+		intVertices = null;
+		longVertices = null;
+		otherVertices = null;
+	}
+}
@@ -0,0 +1,37 @@
+package graphs;
+
+import java.util.SplittableRandom;
+
+// Draws edge weights for the generators in GraphGenerators
+@FunctionalInterface
+public interface WeightDistribution {
+	// Integers 1 .. 100, each equally likely
+	public static final WeightDistribution DEFAULT = uniform(1, 100);
+
+	public double next(SplittableRandom random);
+
+	// Integers min .. max, each equally likely
+	public static WeightDistribution uniform(int min, int max) {
+		if (min > max) {
+			throw new IllegalArgumentException("Empty weight range: " + min + " .. " + max);
+		}
+		return random -> min + random.nextInt(max - min + 1);
+	}
+
+	// Real numbers in [min, max)
+	public static WeightDistribution uniformReal(double min, double max) {
+		if (!(min < max)) {
+			throw new IllegalArgumentException("Empty weight range: " + min + " .. " + max);
+		}
+		return random -> random.nextDouble(min, max);
+	}
+
+	// Exponentially distributed real numbers with the given mean, for heavy differences between edges
+	public static WeightDistribution exponential(double mean) {
+		return random -> -mean * Math.log(1 - random.nextDouble());
+	}
+
+	public static WeightDistribution constant(double weight) {
+		return random -> weight;
+	}
+}
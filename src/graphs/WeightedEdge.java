@@ -8,6 +8,11 @@ public class WeightedEdge extends Edge implements Comparable<WeightedEdge> {
 		this.weight = weight;
 	}
 
+	@Override // Return the edge (v, u) with the same weight
+	public WeightedEdge reverse() {
+		return new WeightedEdge(v, u, weight);
+	}
+
 	@Override
 	public int compareTo(WeightedEdge edge) {
 		if (weight > edge.weight) {
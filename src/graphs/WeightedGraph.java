@@ -42,48 +42,65 @@ public class WeightedGraph<V> extends UnweightedGraph<V> {
 		createWeightedGraph(vertices, edges, isDirected);
 	}
 	
-	// Create adjacency lists from edge arrays
-	private void createWeightedGraph(List<V> vertices, int[][] edges, boolean isDirected) {
-		this.vertices = vertices;
-		this.isDirected = isDirected;
-		
+	// Copy the vertices into the graph and create an empty adjacency list for each
+	private void createVertices(List<V> vertices) {
+		this.vertices = new ArrayList<>(vertices);
+		vertexIndex.ensureCapacity(vertices.size());
 		for (int i = 0; i < vertices.size(); i++) {
+			vertexIndex.add(vertices.get(i), i); // A repeated vertex keeps its first index
 			neighbors.add(new ArrayList<Edge>()); // Create a list for vertices
+			if (isDirected) {
+				incoming.add(new ArrayList<Edge>());
+			}
 		}
+	}
+	
+	// Create adjacency lists from edge arrays
+	private void createWeightedGraph(List<V> vertices, int[][] edges, boolean isDirected) {
+		this.isDirected = isDirected;
+		createVertices(vertices);
 		
+		edgeIndex.ensureCapacity(isDirected ? edges.length : 2 * edges.length);
 		for (int i = 0; i < edges.length; i++) {
-			neighbors.get(edges[i][0]).add(new WeightedEdge(edges[i][0], edges[i][1], edges[i][2]));
-			if (isDirected != true) {
-				neighbors.get(edges[i][1]).add(new WeightedEdge(edges[i][1], edges[i][0], edges[i][2]));
-			}
+			addEdge(new WeightedEdge(edges[i][0], edges[i][1], edges[i][2])); // Also adds (v, u) if undirected
 		}
 	}
 	
 	// Create adjacency lists from edge lists
 	private void createWeightedGraph(List<V> vertices, List<WeightedEdge> edges, boolean isDirected) {
-		this.vertices = vertices;
 		this.isDirected = isDirected;
+		createVertices(vertices);
 		
-		for (int i = 0; i < vertices.size(); i++) {
-			neighbors.add(new ArrayList<Edge>()); // Create a list for vertices
-		}
-		
+		edgeIndex.ensureCapacity(isDirected ? edges.size() : 2 * edges.size());
 		for (WeightedEdge edge : edges) {
-			neighbors.get(edge.u).add(edge); // Add an edge into the list
-			if (isDirected != true) {
-				neighbors.get(edge.v).add(new WeightedEdge(edge.v, edge.u, edge.weight));
-			}
+			addEdge(edge); // Add an edge into the list, and (v, u) if undirected
 		}
 	}
 	
 	// Return weight on the edge (u, v)
 	public double getWeight(int u, int v) throws Exception {
-		for (Edge edge: neighbors.get(u)) {
-			if (edge.v == v) {
-				return ((WeightedEdge)edge).weight;
-			}
+		Edge edge = edgeIndex.get(u, v);
+		if (edge == null) {
+			throw new Exception("Edge does not exist");
+		}
+		return ((WeightedEdge)edge).weight;
+	}
+	
+	// Return the weight of the edge to the i-th neighbor of vertex u, for 0 <= i < getDegree(u)
+	public double getNeighborWeight(int u, int i) {
+		return ((WeightedEdge)neighbors.get(u).get(i)).weight;
+	}
+	
+	// Pass each neighbor of vertex u and the weight of the edge to it to action
+	public void forEachWeightedNeighbor(int u, WeightedNeighborConsumer action) {
+		for (Edge e : neighbors.get(u)) {
+			action.accept(e.v, ((WeightedEdge)e).weight);
 		}
-		throw new Exception("Edge does not exist");
+	}
+	
+	// Return the edge to the i-th neighbor of vertex u
+	WeightedEdge getWeightedEdge(int u, int i) {
+		return (WeightedEdge)neighbors.get(u).get(i);
 	}
 	
 	// Display edges with weights
@@ -102,6 +119,63 @@ public class WeightedGraph<V> extends UnweightedGraph<V> {
 	public boolean addEdge(int u, int v, double weight) {
 		return addEdge(new WeightedEdge(u, v, weight));
 	}
+
+	// Change the weight of the edge (u, v), return false if there is no such edge. The stored
+	// edge is replaced by a new one rather than changed, since it may be the caller's own (see
+	// addEdge(Edge)).
+	public boolean setWeight(int u, int v, double weight) {
+		WeightedEdge edge = (WeightedEdge)edgeIndex.get(u, v);
+		if (edge == null) {
+			return false;
+		}
+		WeightedEdge replacement = new WeightedEdge(u, v, weight);
+		replace(edge, replacement);
+		if (!isDirected && u != v) {
+			replace(edgeIndex.get(v, u), replacement.reverse()); // The copy in the list of v
+		}
+		weightChanged(replacement, edge.weight);
+		return true;
+	}
+
+	@Override
+	WeightedGraph<V> getIncomingGraph() {
+		if (!isDirected) {
+			return this;
+		}
+		// A view whose neighbors and weights come from the incoming lists
+		return new WeightedGraph<V>() {
+			@Override
+			public int getSize() {
+				return WeightedGraph.this.getSize();
+			}
+			
+			@Override
+			public int getDegree(int v) {
+				return WeightedGraph.this.incoming.get(v).size();
+			}
+			
+			@Override
+			public int getNeighbor(int u, int i) {
+				return WeightedGraph.this.incoming.get(u).get(i).u;
+			}
+			
+			@Override
+			public double getNeighborWeight(int u, int i) {
+				return ((WeightedEdge)WeightedGraph.this.incoming.get(u).get(i)).weight;
+			}
+		};
+	}
+
+	// Pass each vertex u with an edge (u, v) and the weight of that edge to action
+	void forEachIncomingWeightedNeighbor(int v, WeightedNeighborConsumer action) {
+		if (!isDirected) {
+			forEachWeightedNeighbor(v, action);
+			return;
+		}
+		for (Edge e : incoming.get(v)) {
+			action.accept(e.u, ((WeightedEdge)e).weight);
+		}
+	}
 	
 	// Get MST rooted at vertex 0
 	public MST getMinimumSpanningTree() {
@@ -110,44 +184,44 @@ public class WeightedGraph<V> extends UnweightedGraph<V> {
 	
 	// Get MST rooted at specific vertex
 	public MST getMinimumSpanningTree(int startingVertex) {
-		// cost[v] stores the cost by adding v to the tree
-		double[] cost = new double[getSize()]; // cost[numberOfVertices]
-		for (int i = 0; i < cost.length; i++) {
-			cost[i] = Double.POSITIVE_INFINITY; // Initial cost
-		}
-		cost[startingVertex] = 0; // Cost of source is 0;
-		
-		int[] parent = new int[getSize()]; // Parent of a vertex
-		parent[startingVertex] = -1; //starting vertex is the root
-		double totalWeight = 0; // Total weight of the tree thus far
-		
-		List<Integer> T = new ArrayList<>(); // T is a set that contains vertices in spanning tree
-		
-		// Expand T
-		while(T.size() < getSize()) {
-			// Find the smallest cost u in V - T
-			int u = -1; // Vertex to be determined
-			double currentMinCost = Double.POSITIVE_INFINITY;
-			for (int i = 0 ; i < getSize(); i++) {
-				if (!T.contains(i) && cost[i] < currentMinCost) {
-					currentMinCost = cost[i];
-					u = i;
-				}
-			}
-			if (u == -1) break; else T.add(u); // Add a new vertex to T
-			totalWeight += cost[u]; // Add cost[u] to the tree
-			
-			// Adjust cost[v] for v that is adjacent to u and v in V - T
-			for (Edge e : neighbors.get(u)) {
-				if (!T.contains(e.v) && cost[e.v] > ((WeightedEdge)e).weight) {
-					cost[e.v] = ((WeightedEdge)e).weight;
-					parent[e.v] = u;
-				}
-			}
- 		} // End of while loop
-		return new MST(startingVertex, parent, T, totalWeight);
+		return getMinimumSpanningTree(startingVertex, MSTStrategy.EAGER_PRIM);
 	}
 	
+	// Get MST rooted at specific vertex using the given algorithm
+	public MST getMinimumSpanningTree(int startingVertex, MSTStrategy strategy) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		MST tree = strategy.getMinimumSpanningTree(this, startingVertex, false);
+		GraphMetrics.record(GraphMetrics.Algorithm.MINIMUM_SPANNING_TREE, start, allocated, tree.getNumberOfVerticesFound(), 0, 0, 0);
+		return tree;
+	}
+	
+	// Get a minimum spanning forest covering every component, rooted at vertex 0
+	public MST getMinimumSpanningForest() {
+		return getMinimumSpanningForest(MSTStrategy.KRUSKAL);
+	}
+	
+	// Get a minimum spanning forest using the given algorithm
+	public MST getMinimumSpanningForest(MSTStrategy strategy) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		MST tree = strategy.getMinimumSpanningTree(this, 0, true);
+		GraphMetrics.record(GraphMetrics.Algorithm.MINIMUM_SPANNING_TREE, start, allocated, tree.getNumberOfVerticesFound(), 0, 0, 0);
+		return tree;
+	}
+	
+	// Get a spanning tree (a forest if the graph is disconnected) with no vertex of degree above
+	// maxDegree and close to minimum weight, rooted at vertex 0, see DegreeConstrainedMST
+	public MST getDegreeConstrainedSpanningTree(int maxDegree) {
+		return DegreeConstrainedMST.search(this, maxDegree, 0);
+	}
+
+	// Get a degree-constrained spanning tree, improved by randomized searches on all cores
+	// until timeLimitMillis have passed
+	public MST getDegreeConstrainedSpanningTree(int maxDegree, long timeLimitMillis) {
+		return DegreeConstrainedMST.search(this, maxDegree, timeLimitMillis);
+	}
+
 	// MST is an inner class in WeightedGraph
 	public class MST extends SearchTree {
 		private double totalWeight; // Total weight of all edges in the tree
@@ -164,47 +238,105 @@ public class WeightedGraph<V> extends UnweightedGraph<V> {
 	
 	//Find single-shortest paths
 	public ShortestPathTree getShortestPath(int sourceVertex) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
 		// cost[v] stores the cost of the path from v to the source
 		double[] cost = new double[getSize()];
-		for (int i = 0; i < cost.length; i++) {
-			cost[i] = Double.POSITIVE_INFINITY; // Initial cost set to infinity
-		}
+		Arrays.fill(cost, Double.POSITIVE_INFINITY); // Initial cost set to infinity
 		cost[sourceVertex] = 0; // Cost of source is 0
 		
 		// parent[v] stores the previous vertex of v in the path
 		int[] parent = new int[getSize()];
-		parent[sourceVertex] = -1; // The parent of source is set to -1
+		Arrays.fill(parent, -1); // The parent of source (and unreached vertices) is -1
 		
-		// T stores the vertices whose path found so far
-		List<Integer> T = new ArrayList<>();
+		// T stores the vertices whose path found so far, isSettled marks them
+		IntList T = new IntList();
+		boolean[] isSettled = new boolean[getSize()];
+		
+		// Vertices in V - T that have a finite cost, keyed by cost
+		IndexedMinHeap queue = new IndexedMinHeap(getSize());
+		queue.offer(sourceVertex, 0);
+		long scanned = 0;
+		long relaxations = 0;
 		
 		// Expand T
-		while(T.size() < getSize()) { // While T size < num of vertices in graph
-			// Find the smalled cost u in V - T
-			int u = -1; // Vertex to be determined
-			double currentMinCost = Double.POSITIVE_INFINITY;
-			for (int i = 0; i < getSize(); i++) {
-				if (!T.contains(i) && cost[i] < currentMinCost) {
-					currentMinCost = cost[i];
-					u = i;
-				}
-			}
-			
-			if (u == -1) break; else T.add(u); //Add a new vertex to T
+		while (!queue.isEmpty()) {
+			int u = queue.poll(); // The smallest cost u in V - T
+			isSettled[u] = true;
+			T.addInt(u); // Add a new vertex to T
 			
 			// Adjust cost[v] for v that is adjacent to u and v in V - T
-			for (Edge e : neighbors.get(u)) {
-				if (!T.contains(e.v) && cost[e.v] > cost[u] + ((WeightedEdge)e).weight) {
-					cost[e.v] = cost[u] + ((WeightedEdge)e).weight;
-					parent[e.v] = u;
+			int degree = getDegree(u);
+			scanned += degree;
+			for (int i = 0; i < degree; i++) {
+				int v = getNeighbor(u, i);
+				double newCost = cost[u] + getNeighborWeight(u, i);
+				if (!isSettled[v] && cost[v] > newCost) {
+					cost[v] = newCost;
+					parent[v] = u;
+					queue.offer(v, newCost);
+					relaxations++;
 				}
 			}
 		} // End of while Loop
 		
+		// Every relaxation and the source were offered, every settled vertex polled
+		GraphMetrics.record(GraphMetrics.Algorithm.SHORTEST_PATH, start, allocated, T.size(), scanned, relaxations,
+				relaxations + 1 + T.size());
+		
 		// Create shortedPathTree
 		return new ShortestPathTree(sourceVertex, parent, T, cost);
  	}
 	
+	// Find single-source shortest paths using all cores, see DeltaStepping
+	public ShortestPathTree parallelShortestPath(int sourceVertex) {
+		return parallelShortestPath(sourceVertex, DeltaStepping.defaultDelta(this));
+	}
+	
+	// Find single-source shortest paths using all cores, with buckets of width delta
+	public ShortestPathTree parallelShortestPath(int sourceVertex, double delta) {
+		long start = GraphMetrics.start();
+		long allocated = GraphMetrics.allocatedBytes(start);
+		ShortestPathTree tree = DeltaStepping.search(this, sourceVertex, delta);
+		GraphMetrics.record(GraphMetrics.Algorithm.PARALLEL_SHORTEST_PATH, start, allocated, tree.getNumberOfVerticesFound(), 0, 0, 0);
+		return tree;
+	}
+	
+	// Find a shortest path from source to target, searching from both ends (see PointToPoint)
+	public Path<V> getShortestPath(int source, int target) {
+		return PointToPoint.bidirectional(this, source, target);
+	}
+	
+	// Find a shortest path from source to target by A* search guided by heuristic
+	public Path<V> getShortestPath(int source, int target, Heuristic<V> heuristic) {
+		return PointToPoint.aStar(this, source, target, heuristic);
+	}
+	
+	// Pass the shortest paths from each source to consumer as soon as they are found, running the
+	// sources in parallel; consumer must be thread-safe and may only use the arrays it is given
+	// until it returns (see ShortestPathRowConsumer)
+	public void getShortestPaths(int[] sources, ShortestPathRowConsumer consumer) {
+		ManySourceShortestPaths.forEachSource(this, sources, consumer);
+	}
+	
+	// Return the costs of shortest paths from each source (rows) to each target (columns)
+	public double[][] getDistances(int[] sources, int[] targets) {
+		return ManySourceShortestPaths.distances(this, sources, targets);
+	}
+	
+	// Return the costs of shortest paths between all pairs of vertices, by Floyd-Warshall on
+	// dense graphs and a search per source otherwise
+	public double[][] getAllPairsDistances() {
+		if (ManySourceShortestPaths.isDense(this)) {
+			return ManySourceShortestPaths.floydWarshall(this);
+		}
+		int[] all = new int[getSize()];
+		for (int v = 0; v < all.length; v++) {
+			all[v] = v;
+		}
+		return getDistances(all, all);
+	}
+	
 	//ShortestPathTree is an inner class of WeightedGraph
 	public class ShortestPathTree extends SearchTree {
 		private double[] cost;
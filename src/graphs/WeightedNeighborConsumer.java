@@ -0,0 +1,7 @@
+package graphs;
+
+// Receives the neighbors of a vertex together with the weights of the connecting edges
+@FunctionalInterface
+public interface WeightedNeighborConsumer {
+	public void accept(int v, double weight);
+}